@@ -0,0 +1,186 @@
+package study.data_jpa.analytics;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.data_jpa.entity.Member;
+import study.data_jpa.entity.Team;
+import study.data_jpa.event.MemberChangeListener;
+import study.data_jpa.shard.ConditionalOnShardingDisabled;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 분석용 {@link MemberColumns} 를 keyset 스캔으로 적재하고 커밋 이벤트로 갱신한다.
+ * 엔티티를 만들지 않고 (id, age, team_id) 스칼라만 읽는다.
+ * 적재 중에 도착한 이벤트가 더 최신이므로 적재는 없는 행만 넣고, 그 사이 커밋된 bulk 변경은 먼저 읽힌 행에 다시 적용한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "data-jpa.analytics.enabled", havingValue = "true")
+@ConditionalOnShardingDisabled
+public class MemberColumnStore implements MemberChangeListener {
+
+    private static final int LOAD_CHUNK = 50_000;
+
+    private final EntityManager em;
+    private final TransactionTemplate readOnlyTx;
+    private final MemberColumns columns = new MemberColumns();
+
+    private final Set<Long> deletedWhileLoading = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    //청크 적용과 bulk 변경은 서로 끼어들지 않는다. 아래 두 목록은 적재 중에만 쌓인다 (bulkLock)
+    private final Object bulkLock = new Object();
+    private final List<AgeShift> shiftsWhileLoading = new ArrayList<>();
+    private final Set<Long> teamsRemovedWhileLoading = new HashSet<>();
+
+    public MemberColumnStore(EntityManager em, PlatformTransactionManager transactionManager) {
+        this.em = em;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.readOnlyTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Thread loader = new Thread(this::load, "member-columns-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    void load() {
+        long start = System.currentTimeMillis();
+        long last = Long.MIN_VALUE;
+        long loaded = 0;
+        while (true) {
+            List<Object[]> rows = readChunk(last);
+            applyChunk(rows);
+            loaded += rows.size();
+            if (rows.size() < LOAD_CHUNK) {
+                break;
+            }
+            last = (Long) rows.get(rows.size() - 1)[0];
+        }
+        synchronized (bulkLock) {
+            ready = true;
+            shiftsWhileLoading.clear();
+            teamsRemovedWhileLoading.clear();
+            deletedWhileLoading.clear();
+        }
+        log.info("member columns loaded: {} members, {} bytes in {}ms ({} negative ages clamped to 0)",
+                loaded, columns.footprintBytes(), System.currentTimeMillis() - start, columns.clampedRows());
+    }
+
+    List<Object[]> readChunk(long last) {
+        return readOnlyTx.execute(status -> em.createQuery(
+                        "select m.id, m.age, m.team.id, m.lastModifiedDate from Member m where m.id > :last order by m.id",
+                        Object[].class)
+                .setParameter("last", last)
+                .setMaxResults(LOAD_CHUNK)
+                .getResultList());
+    }
+
+    void applyChunk(List<Object[]> rows) {
+        synchronized (bulkLock) {
+            for (Object[] row : rows) {
+                Long id = (Long) row[0];
+                if (deletedWhileLoading.contains(id)) {
+                    continue;
+                }
+                int age = (Integer) row[1];
+                Long teamId = (Long) row[2];
+                LocalDateTime lastModified = (LocalDateTime) row[3];
+                //행을 읽은 뒤 커밋된 bulk 변경 - 읽기 전에 커밋된 것은 이미 반영되어 수정 시각이 같거나 늦다
+                for (AgeShift shift : shiftsWhileLoading) {
+                    if (shift.missed(age, lastModified)) {
+                        age++;
+                        lastModified = shift.modifiedAt();
+                    }
+                }
+                if (teamId != null && teamsRemovedWhileLoading.contains(teamId)) {
+                    teamId = null;
+                }
+                columns.insertIfAbsent(id, age, teamId);
+            }
+        }
+    }
+
+    public MemberColumns getColumns() {
+        return columns;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void memberSaved(Member member) {
+        columns.upsert(member.getId(), member.getAge(), teamIdOf(member.getTeam()));
+    }
+
+    @Override
+    public void memberDeleted(Long memberId) {
+        //청크 적용의 삭제 확인 -> 삽입 사이에 끼어들지 않도록 같은 잠금 안에서 기록하고 지운다
+        synchronized (bulkLock) {
+            if (!ready) {
+                deletedWhileLoading.add(memberId);
+            }
+            columns.remove(memberId);
+        }
+    }
+
+    @Override
+    public void membersAgeShifted(int fromAge, LocalDateTime modifiedAt) {
+        synchronized (bulkLock) {
+            if (!ready) {
+                shiftsWhileLoading.add(new AgeShift(fromAge, modifiedAt));
+                shiftsWhileLoading.sort(Comparator.comparing(AgeShift::modifiedAt));
+            }
+            columns.shiftAges(fromAge);
+        }
+    }
+
+    @Override
+    public void teamRemoved(Long teamId, LocalDateTime modifiedAt) {
+        synchronized (bulkLock) {
+            if (!ready) {
+                teamsRemovedWhileLoading.add(teamId);
+            }
+            columns.clearTeam(teamId);
+        }
+    }
+
+    private static Long teamIdOf(Team team) {
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy proxy) {
+            return (Long) proxy.getHibernateLazyInitializer().getIdentifier();
+        }
+        return team.getId();
+    }
+
+    private record AgeShift(int fromAge, LocalDateTime modifiedAt) {
+
+        //bulk update 는 수정 시각을 modifiedAt 으로 바꾸므로 그보다 이전 행만 이 증가를 놓친 것이다 (DB 는 마이크로초까지 저장)
+        boolean missed(int age, LocalDateTime lastModified) {
+            return age >= fromAge
+                    && (lastModified == null || lastModified.isBefore(modifiedAt.truncatedTo(ChronoUnit.MICROS)));
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package study.data_jpa.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 회원의 (id, age, team) 을 열 단위 primitive 배열로 보관한다. 행당 16byte (id 8 + age 4 + team 4).
+ * 행은 id 오름차순이고, 삭제된 행은 age 를 -1 로 표시했다가 일정 비율이 넘으면 압축한다.
+ * 음수 나이는 삭제 표시와 겹치므로 0 으로 보정해 넣고 {@link #clampedRows()} 로 센다 - 한 행 때문에 적재가 멈추지 않는다.
+ * 집계는 읽기 락 안에서 배열을 순서대로 훑는 단순 루프라 JIT 가 벡터화하기 쉽다.
+ */
+public class MemberColumns {
+
+    static final int NO_TEAM = -1;
+    private static final int DELETED = -1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] ids = new long[1024];
+    private int[] ages = new int[1024];
+    private int[] teams = new int[1024];
+    private int rows;
+    private int deleted;
+    private long clamped;
+
+    //team id <-> 사전 번호
+    private final Map<Long, Integer> teamIndex = new HashMap<>();
+    private final List<Long> teamIds = new ArrayList<>();
+
+    public void upsert(long id, int age, Long teamId) {
+        lock.writeLock().lock();
+        try {
+            age = clampAge(age);
+            int team = teamIndexOf(teamId);
+            int row = rows == 0 || ids[rows - 1] < id ? -(rows + 1) : Arrays.binarySearch(ids, 0, rows, id);
+            if (row >= 0) {
+                if (ages[row] == DELETED) {
+                    deleted--;
+                }
+                ages[row] = age;
+                teams[row] = team;
+                return;
+            }
+            insertAt(-row - 1, id, age, team);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 없는 행만 넣는다. 삭제 표시된 행도 있는 것으로 본다. 넣었으면 true.
+     */
+    public boolean insertIfAbsent(long id, int age, Long teamId) {
+        lock.writeLock().lock();
+        try {
+            int row = rows == 0 || ids[rows - 1] < id ? -(rows + 1) : Arrays.binarySearch(ids, 0, rows, id);
+            if (row >= 0) {
+                return false;
+            }
+            insertAt(-row - 1, id, clampAge(age), teamIndexOf(teamId));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            int row = Arrays.binarySearch(ids, 0, rows, id);
+            if (row >= 0 && ages[row] != DELETED) {
+                ages[row] = DELETED;
+                deleted++;
+                if (deleted > 1024 && deleted * 4 > rows) {
+                    compact();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //age >= fromAge 인 회원 모두 +1
+    public void shiftAges(int fromAge) {
+        lock.writeLock().lock();
+        try {
+            int[] a = ages;
+            int from = Math.max(0, fromAge); //삭제 표시(-1)는 건드리지 않는다
+            for (int i = 0; i < rows; i++) {
+                if (a[i] >= from) {
+                    a[i]++;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //팀이 삭제되면 소속 회원은 팀 없음으로 (사전 번호는 그대로 둔다)
+    public void clearTeam(Long teamId) {
+        lock.writeLock().lock();
+        try {
+            Integer team = teamIndex.get(teamId);
+            if (team == null) {
+                return;
+            }
+            int[] t = teams;
+            for (int i = 0; i < rows; i++) {
+                if (t[i] == team) {
+                    t[i] = NO_TEAM;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return rows - deleted;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //음수 나이라 0 으로 보정해 넣은 횟수
+    public long clampedRows() {
+        lock.readLock().lock();
+        try {
+            return clamped;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public double averageAge() {
+        lock.readLock().lock();
+        try {
+            int[] a = ages;
+            long sum = 0;
+            for (int i = 0; i < rows; i++) {
+                int age = a[i];
+                sum += age & ~(age >> 31); //삭제(-1)는 0 으로 - 분기 없는 루프
+            }
+            long live = rows - deleted;
+            return live == 0 ? 0 : (double) sum / live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * index = 나이, 값 = 회원 수. teamId 가 null 이면 전체.
+     */
+    public long[] ageHistogram(Long teamId) {
+        lock.readLock().lock();
+        try {
+            int[] a = ages;
+            long[] histogram = new long[maxAge() + 1];
+            if (teamId == null) {
+                for (int i = 0; i < rows; i++) {
+                    if (a[i] >= 0) {
+                        histogram[a[i]]++;
+                    }
+                }
+                return histogram;
+            }
+            Integer team = teamIndex.get(teamId);
+            if (team == null) {
+                return new long[0];
+            }
+            int[] t = teams;
+            for (int i = 0; i < rows; i++) {
+                if (t[i] == team && a[i] >= 0) {
+                    histogram[a[i]]++;
+                }
+            }
+            return histogram;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //누적 히스토그램으로 계산 - 정렬하지 않는다
+    public int agePercentile(double percentile, Long teamId) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100: " + percentile);
+        }
+        long[] histogram = ageHistogram(teamId);
+        long total = Arrays.stream(histogram).sum();
+        if (total == 0) {
+            return -1;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int age = 0; age < histogram.length; age++) {
+            seen += histogram[age];
+            if (seen >= rank) {
+                return age;
+            }
+        }
+        return histogram.length - 1;
+    }
+
+    public List<TeamAgeSummary> perTeam() {
+        lock.readLock().lock();
+        try {
+            int teamCount = teamIds.size();
+            long[] counts = new long[teamCount];
+            long[] sums = new long[teamCount];
+            int[] mins = new int[teamCount];
+            int[] maxs = new int[teamCount];
+            Arrays.fill(mins, Integer.MAX_VALUE);
+            Arrays.fill(maxs, Integer.MIN_VALUE);
+            int[] a = ages;
+            int[] t = teams;
+            for (int i = 0; i < rows; i++) {
+                int team = t[i];
+                int age = a[i];
+                if (team != NO_TEAM && age >= 0) {
+                    counts[team]++;
+                    sums[team] += age;
+                    mins[team] = Math.min(mins[team], age);
+                    maxs[team] = Math.max(maxs[team], age);
+                }
+            }
+            List<TeamAgeSummary> result = new ArrayList<>();
+            for (int team = 0; team < teamCount; team++) {
+                if (counts[team] > 0) {
+                    result.add(new TeamAgeSummary(teamIds.get(team), counts[team],
+                            (double) sums[team] / counts[team], mins[team], maxs[team]));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //배열이 차지하는 대략의 바이트 수
+    public long footprintBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) ids.length * Long.BYTES + (long) ages.length * Integer.BYTES + (long) teams.length * Integer.BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //음수는 삭제 표시와 겹친다 (쓰기 락 안에서 호출)
+    private int clampAge(int age) {
+        if (age < 0) {
+            clamped++;
+            return 0;
+        }
+        return age;
+    }
+
+    private int maxAge() {
+        int[] a = ages;
+        int max = 0;
+        for (int i = 0; i < rows; i++) {
+            max = Math.max(max, a[i]);
+        }
+        return max;
+    }
+
+    private int teamIndexOf(Long teamId) {
+        if (teamId == null) {
+            return NO_TEAM;
+        }
+        return teamIndex.computeIfAbsent(teamId, id -> {
+            teamIds.add(id);
+            return teamIds.size() - 1;
+        });
+    }
+
+    private void insertAt(int row, long id, int age, int team) {
+        if (rows == ids.length) {
+            int capacity = rows + (rows >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            teams = Arrays.copyOf(teams, capacity);
+        }
+        //새 id 는 대부분 가장 크므로(시간순 id) 보통 끝에 붙는다
+        if (row < rows) {
+            System.arraycopy(ids, row, ids, row + 1, rows - row);
+            System.arraycopy(ages, row, ages, row + 1, rows - row);
+            System.arraycopy(teams, row, teams, row + 1, rows - row);
+        }
+        ids[row] = id;
+        ages[row] = age;
+        teams[row] = team;
+        rows++;
+    }
+
+    private void compact() {
+        int to = 0;
+        for (int from = 0; from < rows; from++) {
+            if (ages[from] != DELETED) {
+                ids[to] = ids[from];
+                ages[to] = ages[from];
+                teams[to] = teams[from];
+                to++;
+            }
+        }
+        rows = to;
+        deleted = 0;
+    }
+}
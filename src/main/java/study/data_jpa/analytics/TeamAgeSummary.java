@@ -0,0 +1,4 @@
+package study.data_jpa.analytics;
+
+public record TeamAgeSummary(Long teamId, long memberCount, double averageAge, int minAge, int maxAge) {
+}
@@ -0,0 +1,111 @@
+package study.data_jpa.archive;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.data_jpa.event.MemberCommitEventPublisher;
+import study.data_jpa.shard.ConditionalOnShardingDisabled;
+import study.data_jpa.stats.TeamAgeDeltas;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 정책(마지막 수정 후 N일 경과)에 맞는 회원을 member_archive 로 옮긴다.
+ * 청크마다 별도 트랜잭션으로 커밋하므로 중간에 멈춰도 다시 실행하면 남은 회원부터 이어서 옮긴다.
+ */
+@Slf4j
+@Component
+@ConditionalOnShardingDisabled
+public class MemberArchiver {
+
+    private final EntityManager em;
+    private final TransactionTemplate chunkTx;
+    private final MemberCommitEventPublisher memberCommitEventPublisher;
+    private final int inactiveDays;
+    private final int chunkSize;
+
+    public MemberArchiver(EntityManager em,
+                          PlatformTransactionManager transactionManager,
+                          MemberCommitEventPublisher memberCommitEventPublisher,
+                          @Value("${data-jpa.archive.inactive-days:365}") int inactiveDays,
+                          @Value("${data-jpa.archive.chunk-size:1000}") int chunkSize) {
+        this.em = em;
+        this.chunkTx = new TransactionTemplate(transactionManager);
+        this.chunkTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.memberCommitEventPublisher = memberCommitEventPublisher;
+        this.inactiveDays = inactiveDays;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(cron = "${data-jpa.archive.cron:-}")
+    public long archive() {
+        return archiveBefore(LocalDateTime.now().minusDays(inactiveDays));
+    }
+
+    public long archiveBefore(LocalDateTime cutoff) {
+        long archived = 0;
+        long lastId = Long.MIN_VALUE;
+        while (true) {
+            long from = lastId;
+            List<Long> ids = chunkTx.execute(status -> archiveChunk(cutoff, from));
+            if (ids.isEmpty()) {
+                break;
+            }
+            archived += ids.size();
+            lastId = ids.get(ids.size() - 1);
+            log.info("archived {} members (last member_id={})", archived, lastId);
+        }
+        return archived;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> archiveChunk(LocalDateTime cutoff, long lastId) {
+        //옮기는 동안 수정되지 않도록 대상 행을 잠근다
+        List<Long> ids = ((List<Number>) em.createNativeQuery(
+                        "select member_id from member where last_modified_date < :cutoff and member_id > :lastId"
+                                + " order by member_id limit :limit for update")
+                .setParameter("cutoff", cutoff)
+                .setParameter("lastId", lastId)
+                .setParameter("limit", chunkSize)
+                .getResultList())
+                .stream()
+                .map(Number::longValue)
+                .toList();
+        if (ids.isEmpty()) {
+            return ids;
+        }
+
+        //팀 통계에서 빠지는 회원 반영
+        TeamAgeDeltas deltas = TeamAgeDeltas.removing(em, ids);
+        em.unwrap(Session.class).doWork(deltas::apply);
+
+        LocalDateTime now = LocalDateTime.now();
+        em.createNativeQuery("insert into member_archive"
+                        + " (member_id, username, age, team_id, created_date, last_modified_date, created_by, last_modified_by, archived_date)"
+                        + " select member_id, username, age, team_id, created_date, last_modified_date, created_by, last_modified_by, :now"
+                        + " from member where member_id in (:ids)")
+                .setParameter("now", now)
+                .setParameter("ids", ids)
+                .executeUpdate();
+        //변경 피드 구독자도 hot 테이블 기준이므로 아카이브된 회원은 삭제로 내려간다
+        em.createNativeQuery("insert into member_tombstone (member_id, deleted_date)"
+                        + " select member_id, :now from member where member_id in (:ids)")
+                .setParameter("now", now)
+                .setParameter("ids", ids)
+                .executeUpdate();
+        em.createNativeQuery("delete from member where member_id in (:ids)")
+                .setParameter("ids", ids)
+                .executeUpdate();
+
+        //인메모리 인덱스 등도 hot 테이블 기준이므로 삭제로 전달
+        memberCommitEventPublisher.publishDeleted(ids);
+        return ids;
+    }
+}
@@ -0,0 +1,35 @@
+package study.data_jpa.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import study.data_jpa.entity.TimeOrderedIdGenerator;
+
+/**
+ * 시간순 id 의 node id 를 설정에서 읽어 생성기를 초기화한다. 빈이 만들어지기 전에 실행된다.
+ * 노드마다 다른 값이 필요하므로 기본값을 두지 않는다 - 없으면 기동을 멈춘다 (dev / test 프로필만 0 을 기본으로 쓴다).
+ */
+public class NodeIdEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    static final String NODE_ID = "data-jpa.node-id";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        String value = environment.getProperty(NODE_ID);
+        if (value == null || value.isBlank()) {
+            throw new IllegalStateException(NODE_ID + " (DATA_JPA_NODE_ID) is not configured."
+                    + " Every node needs its own id so generated ids never collide; only the dev and test profiles default to 0");
+        }
+        long node;
+        try {
+            node = Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException(NODE_ID + " must be a number: " + value, e);
+        }
+        try {
+            TimeOrderedIdGenerator.configureShared(node);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("invalid " + NODE_ID + ": " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package study.data_jpa.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.data_jpa.controller.MemberConditionalGetInterceptor;
+import study.data_jpa.repository.MemberFetchPlan;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    //샤딩 중에는 회원 컨트롤러와 함께 만들어지지 않는다
+    private final ObjectProvider<MemberConditionalGetInterceptor> memberConditionalGetInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        memberConditionalGetInterceptor.ifAvailable(interceptor -> registry.addInterceptor(interceptor)
+                .addPathPatterns("/members", "/members/*", "/members2", "/members2/*"));
+    }
+
+    //?plan= 을 바인딩 단계에서 변환 - 모르는 값은 타입 불일치로 400
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        registry.addConverter(String.class, MemberFetchPlan.class, MemberFetchPlan::of);
+    }
+}
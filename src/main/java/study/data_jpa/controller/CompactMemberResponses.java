@@ -0,0 +1,165 @@
+package study.data_jpa.controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.data_jpa.dto.MemberRow;
+import study.data_jpa.repository.MemberFetchPlan;
+import study.data_jpa.repository.MemberRepository;
+import study.data_jpa.shard.ConditionalOnShardingDisabled;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 회원 목록의 compact 응답. Page 객체를 만들지 않고 결과 행을 읽는 대로 응답 스트림에 쓴다.
+ * <ul>
+ *     <li>columnar JSON: {"fields":[...],"rows":[[...],...],"page":0,"size":20,"hasNext":true} - 필드 이름은 한 번만</li>
+ *     <li>binary: magic(int) 필드 수(short) 필드 이름(UTF)... 행마다 1(byte) + 값, 끝은 0(byte) + hasNext(boolean)</li>
+ * </ul>
+ * 다음 페이지 여부는 행을 다 쓴 뒤에야 알 수 있으므로 맨 뒤에 쓴다.
+ */
+@Component
+@ConditionalOnShardingDisabled
+public class CompactMemberResponses {
+
+    public static final String COLUMNAR_JSON_VALUE = "application/vnd.data-jpa.columnar+json";
+    public static final String BINARY_VALUE = "application/vnd.data-jpa.member-rows";
+
+    static final int BINARY_MAGIC = 0x4D525731; //"MRW1"
+    static final List<String> FIELDS = List.of("id", "username", "age", "teamId", "teamName");
+
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final JsonFactory jsonFactory;
+
+    public CompactMemberResponses(MemberRepository memberRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  ObjectMapper objectMapper) {
+        this.memberRepository = memberRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    public ResponseEntity<StreamingResponseBody> columnarJson(Pageable pageable, MemberFetchPlan plan) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(COLUMNAR_JSON_VALUE))
+                .body(out -> writeColumnarJson(out, pageable, plan));
+    }
+
+    public ResponseEntity<StreamingResponseBody> binary(Pageable pageable, MemberFetchPlan plan) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(BINARY_VALUE))
+                .body(out -> writeBinary(out, pageable, plan));
+    }
+
+    private void writeColumnarJson(OutputStream out, Pageable pageable, MemberFetchPlan plan) throws IOException {
+        try (JsonGenerator json = jsonFactory.createGenerator(out)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.writeStartObject();
+            json.writeArrayFieldStart("fields");
+            for (String field : FIELDS) {
+                json.writeString(field);
+            }
+            json.writeEndArray();
+
+            json.writeArrayFieldStart("rows");
+            boolean hasNext = forEachRow(pageable, plan, row -> {
+                json.writeStartArray();
+                json.writeNumber(row.id());
+                json.writeString(row.username());
+                json.writeNumber(row.age());
+                if (row.teamId() == null) {
+                    json.writeNull();
+                } else {
+                    json.writeNumber(row.teamId());
+                }
+                json.writeString(row.teamName());
+                json.writeEndArray();
+            });
+            json.writeEndArray();
+
+            if (pageable.isPaged()) {
+                json.writeNumberField("page", pageable.getPageNumber());
+                json.writeNumberField("size", pageable.getPageSize());
+            }
+            json.writeBooleanField("hasNext", hasNext);
+            json.writeEndObject();
+        }
+    }
+
+    private void writeBinary(OutputStream out, Pageable pageable, MemberFetchPlan plan) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(BINARY_MAGIC);
+        data.writeShort(FIELDS.size());
+        for (String field : FIELDS) {
+            data.writeUTF(field);
+        }
+
+        boolean hasNext = forEachRow(pageable, plan, row -> {
+            data.writeByte(1);
+            data.writeLong(row.id());
+            writeNullable(data, row.username());
+            data.writeInt(row.age());
+            data.writeBoolean(row.teamId() != null);
+            if (row.teamId() != null) {
+                data.writeLong(row.teamId());
+            }
+            writeNullable(data, row.teamName());
+        });
+        data.writeByte(0);
+        data.writeBoolean(hasNext);
+        data.flush();
+    }
+
+    private static void writeNullable(DataOutputStream data, String value) throws IOException {
+        data.writeBoolean(value != null);
+        if (value != null) {
+            data.writeUTF(value);
+        }
+    }
+
+    //페이지 크기만큼 쓰고, 한 행이 더 읽히면 다음 페이지가 있다
+    private boolean forEachRow(Pageable pageable, MemberFetchPlan plan, RowWriter writer) throws IOException {
+        try {
+            return Boolean.TRUE.equals(readOnlyTx.execute(status -> {
+                try (Stream<MemberRow> rows = memberRepository.streamRows(pageable, plan)) {
+                    Iterator<MemberRow> iterator = rows.iterator();
+                    int written = 0;
+                    while (iterator.hasNext()) {
+                        MemberRow row = iterator.next();
+                        if (pageable.isPaged() && written == pageable.getPageSize()) {
+                            return true;
+                        }
+                        writer.write(row);
+                        written++;
+                    }
+                    return false;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(MemberRow row) throws IOException;
+    }
+}
@@ -0,0 +1,69 @@
+package study.data_jpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.data_jpa.analytics.MemberColumnStore;
+import study.data_jpa.analytics.MemberColumns;
+import study.data_jpa.analytics.TeamAgeSummary;
+import study.data_jpa.shard.ConditionalOnShardingDisabled;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "data-jpa.analytics.enabled", havingValue = "true")
+@ConditionalOnShardingDisabled
+public class MemberAnalyticsController {
+
+    private final MemberColumnStore memberColumnStore;
+
+    //나이 -> 회원 수 (0 명인 나이는 생략)
+    @GetMapping("/members/analytics/ages")
+    public Map<Integer, Long> ageHistogram(@RequestParam(value = "teamId", required = false) Long teamId) {
+        long[] histogram = columns().ageHistogram(teamId);
+        Map<Integer, Long> result = new LinkedHashMap<>();
+        for (int age = 0; age < histogram.length; age++) {
+            if (histogram[age] > 0) {
+                result.put(age, histogram[age]);
+            }
+        }
+        return result;
+    }
+
+    //예: /members/analytics/ages/percentiles?p=50,90,99
+    @GetMapping("/members/analytics/ages/percentiles")
+    public Map<Double, Integer> agePercentiles(@RequestParam(value = "p", defaultValue = "50,90,99") List<Double> percentiles,
+                                               @RequestParam(value = "teamId", required = false) Long teamId) {
+        for (Double percentile : percentiles) {
+            if (percentile == null || !(percentile >= 0 && percentile <= 100)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "p must be between 0 and 100: " + percentile);
+            }
+        }
+        MemberColumns columns = columns();
+        Map<Double, Integer> result = new LinkedHashMap<>();
+        for (Double percentile : percentiles) {
+            result.put(percentile, columns.agePercentile(percentile, teamId));
+        }
+        return result;
+    }
+
+    @GetMapping("/members/analytics/teams")
+    public List<TeamAgeSummary> teams() {
+        return columns().perTeam();
+    }
+
+    //적재가 끝나기 전에는 잠시 후 다시 시도하라는 503
+    private MemberColumns columns() {
+        if (!memberColumnStore.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "member columns are still loading");
+        }
+        return memberColumnStore.getColumns();
+    }
+}
@@ -0,0 +1,95 @@
+package study.data_jpa.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+import study.data_jpa.readmodel.MemberReadModel;
+import study.data_jpa.readmodel.MemberSnapshot;
+import study.data_jpa.repository.MemberRepository;
+import study.data_jpa.repository.MemberVersion;
+import study.data_jpa.shard.ConditionalOnShardingDisabled;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 회원 조회 API 의 ETag / Last-Modified 처리.
+ * 핸들러 인자 해석(도메인 클래스 컨버터) 전에 실행되므로 304 인 경우 엔티티를 조회하지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnShardingDisabled
+public class MemberConditionalGetInterceptor implements HandlerInterceptor {
+
+    private static final Pattern SINGLE_MEMBER = Pattern.compile("^/members2?/(\\d+)$");
+    private static final Pattern MEMBER_LIST = Pattern.compile("^/members2?$");
+
+    private final MemberRepository memberRepository;
+    private final ObjectProvider<MemberReadModel> memberReadModel;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+
+        Matcher single = SINGLE_MEMBER.matcher(path);
+        if (single.matches()) {
+            Long id = Long.valueOf(single.group(1));
+            Optional<LocalDateTime> lastModified = lastModified(id);
+            if (lastModified.isEmpty()) {
+                return true;
+            }
+            Instant instant = toInstant(lastModified.get());
+            String etag = "\"m" + id + "-" + version(instant) + "\"";
+            return !webRequest.checkNotModified(etag, instant.toEpochMilli());
+        }
+
+        if (MEMBER_LIST.matcher(path).matches()) {
+            //목록은 회원 / 팀의 건수 + 최종 수정 시각을 검증자로 쓴다. 삭제는 수정 시각을 바꾸지 않으므로 Last-Modified 는 쓰지 않는다
+            MemberVersion memberVersion = memberRepository.findVersion();
+            String lastModified = version(memberVersion.getLastModified())
+                    + "-t" + memberVersion.getTeamCount() + "-" + version(memberVersion.getTeamLastModified());
+            String query = request.getQueryString() == null ? "" : request.getQueryString();
+            //같은 URL 이라도 Accept 에 따라 포맷(JSON / columnar / binary)이 달라진다
+            String accept = request.getHeader(HttpHeaders.ACCEPT) == null ? "" : request.getHeader(HttpHeaders.ACCEPT);
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            String etag = "\"l" + memberVersion.getMemberCount() + "-" + lastModified
+                    + "-" + Integer.toHexString((path + "?" + query + "#" + accept).hashCode()) + "\"";
+            return !webRequest.checkNotModified(etag);
+        }
+        return true;
+    }
+
+    //리드 모델이 있으면 DB 를 거치지 않는다
+    private Optional<LocalDateTime> lastModified(Long id) {
+        MemberReadModel readModel = memberReadModel.getIfAvailable();
+        if (readModel != null && readModel.isReady()) {
+            return readModel.find(id).map(MemberSnapshot::lastModified);
+        }
+        return memberRepository.findLastModifiedDateById(id);
+    }
+
+    private static Instant toInstant(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    private static String version(LocalDateTime dateTime) {
+        return dateTime == null ? "0" : version(toInstant(dateTime));
+    }
+
+    private static String version(Instant instant) {
+        return instant.getEpochSecond() + "." + instant.getNano();
+    }
+}
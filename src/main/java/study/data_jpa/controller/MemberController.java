@@ -2,47 +2,154 @@ package study.data_jpa.controller;
 
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.data_jpa.dto.MemberChangeFeed;
 import study.data_jpa.dto.MemberDto;
+import study.data_jpa.dto.MemberSearchCondition;
 import study.data_jpa.entity.Member;
+import study.data_jpa.readmodel.MemberReadModel;
+import study.data_jpa.readmodel.MemberSnapshot;
+import study.data_jpa.repository.MemberFetchPlan;
 import study.data_jpa.repository.MemberRepository;
+import study.data_jpa.repository.ParallelPager;
+import study.data_jpa.search.UsernameSearchIndex;
+import study.data_jpa.shard.ConditionalOnShardingDisabled;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequiredArgsConstructor
+@ConditionalOnShardingDisabled
 public class MemberController {
 
     private final MemberRepository memberRepository;
+    private final UsernameSearchIndex usernameSearchIndex;
+    private final ParallelPager parallelPager;
+    private final ObjectProvider<MemberReadModel> memberReadModel;
+    private final CompactMemberResponses compactMemberResponses;
 
     @GetMapping("/members/{id}")
     public String findMember(@PathVariable("id") Long id) {
+        Optional<MemberSnapshot> snapshot = findSnapshot(id);
+        if (snapshot.isPresent()) {
+            return snapshot.get().username();
+        }
         Member member = memberRepository.findById(id).get();
         return member.getUsername();
     }
 
+    //리드 모델이 꺼져 있으면 도메인 클래스 컨버터처럼 엔티티를 조회
     @GetMapping("/members2/{id}")
-    public String findMember2(@PathVariable("id") Member member) {
-        return member.getUsername();
+    public String findMember2(@PathVariable("id") Long id) {
+        return findSnapshot(id)
+                .map(MemberSnapshot::username)
+                .orElseGet(() -> memberRepository.findById(id).map(Member::getUsername).orElse(null));
+    }
+
+    private Optional<MemberSnapshot> findSnapshot(Long id) {
+        MemberReadModel readModel = memberReadModel.getIfAvailable();
+        if (readModel == null || !readModel.isReady()) {
+            return Optional.empty();
+        }
+        return readModel.find(id);
     }
 
+    //요청한 id 순서대로 id -> username, 없는 id 는 null
+    @GetMapping("/members/multi")
+    public Map<Long, String> findMembersByIds(@RequestParam("ids") List<Long> ids) {
+        List<Optional<Member>> members = memberRepository.multiGet(ids);
+        Map<Long, String> result = new LinkedHashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            result.put(ids.get(i), members.get(i).map(Member::getUsername).orElse(null));
+        }
+        return result;
+    }
+
+    //예: /members/search?usernamePrefix=mem&ageGoe=20&sort=username&lastUsername=member3&lastId=12
+    @GetMapping("/members/search")
+    public List<MemberDto> searchMembers(MemberSearchCondition condition,
+                                         @RequestParam(value = "size", defaultValue = "20") int size) {
+        return memberRepository.search(condition, Math.min(Math.max(size, 1), 1000));
+    }
+
+    //username 자동완성 - 인덱스에서 순위대로 id 를 찾고 한 번에 조회
+    @GetMapping("/members/typeahead")
+    public List<MemberDto> typeahead(@RequestParam("q") String q,
+                                     @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        List<Long> ids = usernameSearchIndex.search(q, Math.min(Math.max(limit, 1), 100));
+        return memberRepository.multiGet(ids).stream()
+                .flatMap(Optional::stream)
+                .map(member -> new MemberDto(member.getId(), member.getUsername(), null))
+                .toList();
+    }
+
+    //증분 동기화 - 응답의 nextSince / nextLastId 를 다음 요청에 넘긴다
+    @GetMapping("/members/changes")
+    public MemberChangeFeed findMemberChanges(
+            @RequestParam(value = "since", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(value = "lastId", defaultValue = "0") Long lastId,
+            @RequestParam(value = "size", defaultValue = "100") int size) {
+        LocalDateTime from = since == null ? LocalDateTime.of(1970, 1, 1, 0, 0) : since;
+        return memberRepository.findChanges(from, lastId, Math.min(Math.max(size, 1), 1000));
+    }
+
+    //count 가 늦으면 totalElements 없이 Slice 로 응답, plan=withTeam 이면 팀까지 조인
     @GetMapping("/members")
-    public Page<Member> findMembers(Pageable pageable) {
-        return memberRepository.findAll(pageable);
+    public Slice<Member> findMembers(Pageable pageable,
+                                     @RequestParam(value = "plan", defaultValue = "summary") MemberFetchPlan plan) {
+        return parallelPager.findPage(pageable, p -> memberRepository.findSlice(p, plan), memberRepository::count);
     }
 
     @GetMapping("/members2")
-    public Page<MemberDto> findMembers2(@PageableDefault(size = 5, sort = "username", direction = Sort.Direction.DESC) Pageable pageable) {
-        Page<Member> page = memberRepository.findAll(pageable);
-        Page<MemberDto> map = page.map(member -> new MemberDto(member.getId(), member.getUsername(), null));
+    public Slice<MemberDto> findMembers2(@PageableDefault(size = 5, sort = "username", direction = Sort.Direction.DESC) Pageable pageable,
+                                         @RequestParam(value = "plan", defaultValue = "summary") MemberFetchPlan plan) {
+        Slice<Member> page = parallelPager.findPage(pageable, p -> memberRepository.findSlice(p, plan), memberRepository::count);
+        Slice<MemberDto> map = page.map(member -> new MemberDto(member.getId(), member.getUsername(),
+                plan == MemberFetchPlan.WITH_TEAM && member.getTeam() != null ? member.getTeam().getName() : null));
 
         return map;
     }
 
+    //Accept 헤더로 compact 포맷 선택 - 행을 읽는 대로 응답에 쓴다
+    @GetMapping(value = "/members", produces = CompactMemberResponses.COLUMNAR_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> findMembersColumnar(Pageable pageable,
+                                                                     @RequestParam(value = "plan", defaultValue = "summary") MemberFetchPlan plan) {
+        return compactMemberResponses.columnarJson(pageable, plan);
+    }
+
+    @GetMapping(value = "/members", produces = CompactMemberResponses.BINARY_VALUE)
+    public ResponseEntity<StreamingResponseBody> findMembersBinary(Pageable pageable,
+                                                                   @RequestParam(value = "plan", defaultValue = "summary") MemberFetchPlan plan) {
+        return compactMemberResponses.binary(pageable, plan);
+    }
+
+    @GetMapping(value = "/members2", produces = CompactMemberResponses.COLUMNAR_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> findMembers2Columnar(@PageableDefault(size = 5, sort = "username", direction = Sort.Direction.DESC) Pageable pageable,
+                                                                      @RequestParam(value = "plan", defaultValue = "summary") MemberFetchPlan plan) {
+        return compactMemberResponses.columnarJson(pageable, plan);
+    }
+
+    @GetMapping(value = "/members2", produces = CompactMemberResponses.BINARY_VALUE)
+    public ResponseEntity<StreamingResponseBody> findMembers2Binary(@PageableDefault(size = 5, sort = "username", direction = Sort.Direction.DESC) Pageable pageable,
+                                                                    @RequestParam(value = "plan", defaultValue = "summary") MemberFetchPlan plan) {
+        return compactMemberResponses.binary(pageable, plan);
+    }
+
 //    @PostConstruct
     public void init() {
         for (int i = 0; i < 100; i++) {
@@ -0,0 +1,139 @@
+package study.data_jpa.datagen;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import study.data_jpa.entity.ItemIdConverter;
+import study.data_jpa.entity.TimeOrderedIdGenerator;
+import study.data_jpa.entity.TimeOrderedUuid;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 성능 재현용 대량 데이터를 JDBC batch insert 로 넣는다.
+ * 엔티티를 거치지 않으므로 Hibernate 리스너(팀 통계 등)는 동작하지 않는다 - 필요하면 생성 후 재계산한다.
+ */
+@Slf4j
+@Component
+public class DatasetGenerator {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final String GENERATOR = "datagen";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ItemIdConverter itemIdConverter = new ItemIdConverter();
+
+    public DatasetGenerator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public DatasetSummary generate(DatasetSpec spec) {
+        long start = System.currentTimeMillis();
+        SplittableRandom random = new SplittableRandom(spec.seed());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        long[] teamIds = insertTeams(spec.teams(), now);
+        insertMembers(spec, teamIds, random, now);
+        insertItems(spec.items(), now);
+
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("generated {} teams, {} members, {} items in {}ms", spec.teams(), spec.members(), spec.items(), elapsed);
+        return new DatasetSummary(spec.teams(), spec.members(), spec.items(), elapsed);
+    }
+
+    private long[] insertTeams(int count, Timestamp now) {
+        long[] ids = new long[count];
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < count; i++) {
+            ids[i] = TimeOrderedIdGenerator.shared().nextId();
+            batch.add(new Object[]{ids[i], "team" + i, now, now});
+            if (batch.size() == BATCH_SIZE) {
+                flush("insert into team (team_id, name, created_date, last_modified_date) values (?, ?, ?, ?)", batch);
+            }
+        }
+        flush("insert into team (team_id, name, created_date, last_modified_date) values (?, ?, ?, ?)", batch);
+        return ids;
+    }
+
+    private void insertMembers(DatasetSpec spec, long[] teamIds, SplittableRandom random, Timestamp now) {
+        String sql = "insert into member (member_id, username, age, team_id,"
+                + " created_date, last_modified_date, created_by, last_modified_by) values (?, ?, ?, ?, ?, ?, ?, ?)";
+        double[] teamCdf = zipfCdf(teamIds.length, spec.teamSkew());
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < spec.members(); i++) {
+            Long teamId = teamIds.length == 0 || random.nextDouble() < spec.noTeamRatio()
+                    ? null
+                    : teamIds[pick(teamCdf, random.nextDouble())];
+            batch.add(new Object[]{
+                    TimeOrderedIdGenerator.shared().nextId(),
+                    "user" + random.nextInt(spec.usernameCardinality()),
+                    age(spec, random),
+                    teamId,
+                    now, now, GENERATOR, GENERATOR});
+            if (batch.size() == BATCH_SIZE) {
+                flush(sql, batch);
+            }
+            if ((i + 1) % 100_000 == 0) {
+                log.info("generated {} / {} members", i + 1, spec.members());
+            }
+        }
+        flush(sql, batch);
+    }
+
+    private void insertItems(int count, Timestamp now) {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < count; i++) {
+            batch.add(new Object[]{itemIdConverter.convertToDatabaseColumn(TimeOrderedUuid.nextString()), now});
+            if (batch.size() == BATCH_SIZE) {
+                flush("insert into item (id, created_date) values (?, ?)", batch);
+            }
+        }
+        flush("insert into item (id, created_date) values (?, ?)", batch);
+    }
+
+    private void flush(String sql, List<Object[]> batch) {
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batch);
+            batch.clear();
+        }
+    }
+
+    //정규분포, 1 ~ 99 로 자른다
+    private static int age(DatasetSpec spec, SplittableRandom random) {
+        double gaussian = gaussian(random);
+        long age = Math.round(spec.ageMean() + gaussian * spec.ageStdDev());
+        return (int) Math.min(99, Math.max(1, age));
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        //Box-Muller
+        double u1 = 1.0 - random.nextDouble();
+        double u2 = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+    }
+
+    //순위 k 의 확률이 1/k^s 에 비례하는 누적분포
+    static double[] zipfCdf(int n, double s) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1 / Math.pow(k + 1, s);
+            cdf[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cdf[k] /= sum;
+        }
+        return cdf;
+    }
+
+    static int pick(double[] cdf, double p) {
+        int index = Arrays.binarySearch(cdf, p);
+        index = index >= 0 ? index : -index - 1;
+        return Math.min(index, cdf.length - 1);
+    }
+}
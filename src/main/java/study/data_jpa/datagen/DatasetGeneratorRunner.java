@@ -0,0 +1,42 @@
+package study.data_jpa.datagen;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import study.data_jpa.shard.ConditionalOnShardingDisabled;
+import study.data_jpa.stats.TeamAgeStatsReconciler;
+
+/**
+ * --spring.profiles.active=datagen 으로 기동하면 시작 시 데이터를 생성한다. (node id 가 없으면 dev,datagen)
+ * 예: --data-jpa.datagen.members=1000000 --data-jpa.datagen.teams=5000
+ */
+@Component
+@Profile("datagen")
+@RequiredArgsConstructor
+@ConditionalOnShardingDisabled
+public class DatasetGeneratorRunner implements ApplicationRunner {
+
+    private final DatasetGenerator datasetGenerator;
+    private final TeamAgeStatsReconciler teamAgeStatsReconciler;
+
+    @Value("${data-jpa.datagen.teams:1000}") int teams;
+    @Value("${data-jpa.datagen.members:1000000}") int members;
+    @Value("${data-jpa.datagen.items:100000}") int items;
+    @Value("${data-jpa.datagen.team-skew:1.1}") double teamSkew;
+    @Value("${data-jpa.datagen.no-team-ratio:0.05}") double noTeamRatio;
+    @Value("${data-jpa.datagen.age-mean:35}") double ageMean;
+    @Value("${data-jpa.datagen.age-std-dev:12}") double ageStdDev;
+    @Value("${data-jpa.datagen.username-cardinality:500000}") int usernameCardinality;
+    @Value("${data-jpa.datagen.seed:42}") long seed;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        datasetGenerator.generate(new DatasetSpec(teams, members, items,
+                teamSkew, noTeamRatio, ageMean, ageStdDev, usernameCardinality, seed));
+        //JDBC 로 넣었으므로 팀 통계는 다시 계산
+        teamAgeStatsReconciler.reconcile();
+    }
+}
@@ -0,0 +1,23 @@
+package study.data_jpa.datagen;
+
+/**
+ * 생성할 데이터 규모와 분포.
+ *
+ * @param teamSkew            팀 크기 Zipf 지수 (0 이면 균등, 클수록 소수 팀에 몰린다)
+ * @param noTeamRatio         팀이 없는 회원 비율
+ * @param usernameCardinality 서로 다른 username 수 (회원 수보다 작으면 중복 이름이 생긴다)
+ */
+public record DatasetSpec(int teams,
+                          int members,
+                          int items,
+                          double teamSkew,
+                          double noTeamRatio,
+                          double ageMean,
+                          double ageStdDev,
+                          int usernameCardinality,
+                          long seed) {
+
+    public static DatasetSpec of(int teams, int members, int items) {
+        return new DatasetSpec(teams, members, items, 1.1, 0.05, 35, 12, Math.max(1, members / 2), 42L);
+    }
+}
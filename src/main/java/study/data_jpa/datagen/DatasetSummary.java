@@ -0,0 +1,4 @@
+package study.data_jpa.datagen;
+
+public record DatasetSummary(int teams, int members, int items, long elapsedMillis) {
+}
@@ -0,0 +1,26 @@
+package study.data_jpa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MemberChangeFeed {
+
+    private List<MemberDto> changed;
+    private List<Long> deleted;
+
+    //다음 요청에 그대로 넘길 워터마크 (since, lastId)
+    private LocalDateTime nextSince;
+    private Long nextLastId;
+    private boolean hasMore;
+
+    //since 가 tombstone 보존 기간보다 오래됨 - 로컬 사본을 버리고 처음부터 다시 받아야 한다
+    private boolean resyncRequired;
+
+}
@@ -0,0 +1,7 @@
+package study.data_jpa.dto;
+
+/**
+ * 목록 응답의 compact 포맷 한 행. 엔티티를 거치지 않고 결과 행에서 바로 만든다.
+ */
+public record MemberRow(long id, String username, int age, Long teamId, String teamName) {
+}
@@ -0,0 +1,28 @@
+package study.data_jpa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MemberSearchCondition {
+
+    private String usernamePrefix;
+    private Integer ageGoe;
+    private Integer ageLoe;
+    private String teamName;
+
+    //id 또는 username (username 정렬은 username, id 순)
+    private String sort;
+
+    //keyset paging 커서 - 이전 페이지 마지막 행의 값
+    private Long lastId;
+    private String lastUsername;
+
+    public boolean sortByUsername() {
+        return "username".equals(sort);
+    }
+
+}
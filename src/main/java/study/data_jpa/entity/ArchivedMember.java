@@ -0,0 +1,42 @@
+package study.data_jpa.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * 아카이브된(비활성) 회원. member 테이블에서 옮겨지며 읽기 전용이다.
+ */
+@Entity
+@Immutable
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ToString(of = {"id", "username", "age", "teamId"})
+@Table(name = "member_archive")
+public class ArchivedMember {
+
+    @Id
+    @Column(name = "member_id")
+    Long id;
+
+    String username;
+    int age;
+
+    @Column(name = "team_id")
+    Long teamId;
+
+    LocalDateTime createdDate;
+    @Column(name = "last_modified_date")
+    LocalDateTime lastModifiedDate;
+    String createdBy;
+    String lastModifiedBy;
+
+    LocalDateTime archivedDate;
+}
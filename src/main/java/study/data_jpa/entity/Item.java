@@ -1,5 +1,7 @@
 package study.data_jpa.entity;
 
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
@@ -19,6 +21,8 @@ import java.time.LocalDateTime;
 public class Item implements Persistable<String> {
 
     @Id
+    @Convert(converter = ItemIdConverter.class)
+    @Column(length = ItemIdConverter.MAX_BYTES)
     private String id;
 
     @CreatedDate
@@ -28,6 +32,11 @@ public class Item implements Persistable<String> {
         this.id = id;
     }
 
+    //시간순 UUID 키 -> 16byte 바이너리 컬럼에 저장
+    public static Item withTimeOrderedId() {
+        return new Item(TimeOrderedUuid.nextString());
+    }
+
     @Override
     public String getId() {
         return id;
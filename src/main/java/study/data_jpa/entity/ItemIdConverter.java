@@ -0,0 +1,75 @@
+package study.data_jpa.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * 정규 표기(소문자 36자) UUID 문자열 id 는 16byte 바이너리로, 그 외 문자열은 UTF-8 그대로 저장한다.
+ * 16byte 는 UUID 전용이므로 UTF-8 로 16byte 가 되는 기존 문자열 id 는 앞에 태그(0x00)를 붙여 17byte 로 저장한다.
+ */
+@Converter
+public class ItemIdConverter implements AttributeConverter<String, byte[]> {
+
+    static final int UUID_BYTES = 16;
+    //기존 컬럼은 varchar(255) - 자바 char 하나는 UTF-8 로 최대 3byte (서로게이트 쌍은 2 char 에 4byte)
+    static final int MAX_BYTES = 255 * 3;
+    static final byte LEGACY_TAG = 0;
+
+    @Override
+    public byte[] convertToDatabaseColumn(String id) {
+        if (id == null) {
+            return null;
+        }
+        UUID uuid = parseUuid(id);
+        if (uuid != null) {
+            return ByteBuffer.allocate(UUID_BYTES)
+                    .putLong(uuid.getMostSignificantBits())
+                    .putLong(uuid.getLeastSignificantBits())
+                    .array();
+        }
+        //NUL 로 시작하는 바이트는 태그로 쓰므로 id 에 NUL 문자는 받지 않는다
+        if (id.indexOf('\0') >= 0) {
+            throw new IllegalArgumentException("item id must not contain NUL characters");
+        }
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length == UUID_BYTES) {
+            byte[] tagged = new byte[UUID_BYTES + 1];
+            tagged[0] = LEGACY_TAG;
+            System.arraycopy(bytes, 0, tagged, 1, UUID_BYTES);
+            return tagged;
+        }
+        return bytes;
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        if (bytes.length == UUID_BYTES) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            return new UUID(buffer.getLong(), buffer.getLong()).toString();
+        }
+        if (bytes.length > 0 && bytes[0] == LEGACY_TAG) {
+            return new String(bytes, 1, bytes.length - 1, StandardCharsets.UTF_8);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static UUID parseUuid(String id) {
+        //UUID.fromString 은 "1-1-1-1-1" 같은 짧은 형태나 대문자도 받아주므로 되돌렸을 때 같은 문자열(소문자 36자)만 UUID 로 본다
+        if (id.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
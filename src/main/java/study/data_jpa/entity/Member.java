@@ -12,13 +12,15 @@ import lombok.experimental.FieldDefaults;
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @ToString(of = {"id", "username", "age", "team"})
+@Table(indexes = @Index(name = "idx_member_last_modified", columnList = "last_modified_date, member_id"))
 @NamedQuery(
         name = "Member.findByUsername",
         query = "select m from Member m where m.username = :username"
 )
+@NamedEntityGraph(name = "Member.withTeam", attributeNodes = @NamedAttributeNode("team"))
 public class Member extends BaseEntity{
 
-    @Id @GeneratedValue
+    @Id @TimeOrderedId
     @Column(name = "member_id")
     Long id;
 
@@ -55,4 +57,8 @@ public class Member extends BaseEntity{
     public void setUsername(String username) {
         this.username = username;
     }
+
+    public void changeAge(int age) {
+        this.age = age;
+    }
 }
@@ -0,0 +1,34 @@
+package study.data_jpa.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+/**
+ * 삭제된 회원 기록. 변경 피드가 삭제도 (deletedDate, memberId) 순서로 내려줄 수 있게 남긴다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ToString(of = {"memberId", "deletedDate"})
+@Table(indexes = @Index(name = "idx_member_tombstone_deleted", columnList = "deleted_date, member_id"))
+public class MemberTombstone {
+
+    @Id
+    @Column(name = "member_id")
+    Long memberId;
+
+    @Column(name = "deleted_date", nullable = false)
+    LocalDateTime deletedDate;
+
+    public MemberTombstone(Long memberId, LocalDateTime deletedDate) {
+        this.memberId = memberId;
+        this.deletedDate = deletedDate;
+    }
+}
@@ -15,9 +15,9 @@ import java.util.List;
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @ToString(of = {"id", "name"})
-public class Team {
+public class Team extends BaseTimeEntity {
 
-    @Id @GeneratedValue
+    @Id @TimeOrderedId
     @Column(name = "team_id")
     Long id;
 
@@ -29,4 +29,8 @@ public class Team {
     public Team(String name) {
         this.name = name;
     }
+
+    public void changeName(String name) {
+        this.name = name;
+    }
 }
@@ -0,0 +1,50 @@
+package study.data_jpa.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 팀별 나이 통계 요약 테이블. 회원 변경 시 증분(delta)으로 갱신된다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ToString(of = {"teamId", "memberCount", "ageSum"})
+public class TeamAgeStats {
+
+    @Id
+    Long teamId;
+
+    long memberCount;
+    long ageSum;
+
+    //나이 -> 회원 수
+    @ElementCollection
+    @CollectionTable(name = "team_age_histogram", joinColumns = @JoinColumn(name = "team_id"))
+    @MapKeyColumn(name = "age")
+    @Column(name = "member_count")
+    Map<Integer, Long> histogram = new HashMap<>();
+
+    public TeamAgeStats(Long teamId) {
+        this.teamId = teamId;
+    }
+
+    public double getAverageAge() {
+        return memberCount == 0 ? 0 : (double) ageSum / memberCount;
+    }
+
+    public void reset(Map<Integer, Long> histogram) {
+        this.histogram.clear();
+        this.histogram.putAll(histogram);
+        this.memberCount = histogram.values().stream().mapToLong(Long::longValue).sum();
+        this.ageSum = histogram.entrySet().stream().mapToLong(e -> (long) e.getKey() * e.getValue()).sum();
+    }
+}
@@ -0,0 +1,20 @@
+package study.data_jpa.entity;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * DB 시퀀스 대신 {@link TimeOrderedIdGenerator} 로 id 를 할당한다.
+ * insert 전에 id 가 정해지므로 JDBC batch insert 와 함께 쓸 수 있다.
+ */
+@IdGeneratorType(TimeOrderedIdentifierGenerator.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface TimeOrderedId {
+}
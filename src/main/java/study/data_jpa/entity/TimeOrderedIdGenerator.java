@@ -0,0 +1,112 @@
+package study.data_jpa.entity;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 시간순 64bit id 생성기. [41bit 밀리초 | 10bit node | 12bit sequence]
+ * node 영역은 [6bit node id | 4bit shard] 로 나눠 쓴다. 샤딩을 쓰지 않는 id 는 shard 0 이다.
+ * node 영역만 생성기마다 다르면 조율 없이 유일하다. CAS 한 번으로 할당하므로 락이 없다.
+ */
+public final class TimeOrderedIdGenerator {
+
+    public static final long EPOCH = 1704067200000L; // 2024-01-01T00:00:00Z
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    public static final int SHARD_BITS = 4;
+    public static final long MAX_NODE_ID = MAX_NODE >>> SHARD_BITS;
+    static final long SHARD_MASK = (1L << SHARD_BITS) - 1;
+    static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    //기동 시 NodeIdEnvironmentPostProcessor 가 data-jpa.node-id 로 설정한다
+    private static volatile TimeOrderedIdGenerator shared;
+
+    private final long node;
+    //(epoch 기준 밀리초 << SEQUENCE_BITS) | sequence
+    private final AtomicLong state = new AtomicLong();
+
+    public TimeOrderedIdGenerator(long node) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("node id must be between 0 and " + MAX_NODE + ": " + node);
+        }
+        this.node = node;
+    }
+
+    /**
+     * node id(0 ~ 63) 와 shard 번호로 node 영역을 채운 생성기.
+     */
+    public static TimeOrderedIdGenerator of(long nodeId, int shard) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        if (shard < 0 || shard > SHARD_MASK) {
+            throw new IllegalArgumentException("shard must be between 0 and " + SHARD_MASK + ": " + shard);
+        }
+        return new TimeOrderedIdGenerator((nodeId << SHARD_BITS) | shard);
+    }
+
+    public static TimeOrderedIdGenerator shared() {
+        TimeOrderedIdGenerator generator = shared;
+        if (generator == null) {
+            throw new IllegalStateException("node id is not configured - set data-jpa.node-id (DATA_JPA_NODE_ID)");
+        }
+        return generator;
+    }
+
+    /**
+     * 프로세스 전체에서 쓰는 생성기(shard 0)의 node id 를 정한다. 같은 값으로 다시 호출하는 것은 허용한다(테스트의 여러 컨텍스트).
+     */
+    public static synchronized void configureShared(long nodeId) {
+        TimeOrderedIdGenerator generator = of(nodeId, 0); //범위 검사
+        if (shared != null) {
+            if (shared.getNodeId() != nodeId) {
+                throw new IllegalStateException("node id is already configured as " + shared.getNodeId() + ": " + nodeId);
+            }
+            return;
+        }
+        shared = generator;
+    }
+
+    public long nextId() {
+        while (true) {
+            long prev = state.get();
+            long now = System.currentTimeMillis() - EPOCH;
+            //시계가 뒤로 가거나 같은 밀리초에 sequence 가 넘치면 다음 밀리초를 당겨 쓴다 -> 항상 단조 증가
+            long next = now > (prev >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : prev + 1;
+            if (state.compareAndSet(prev, next)) {
+                return ((next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS))
+                        | (node << SEQUENCE_BITS)
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    public long getNode() {
+        return node;
+    }
+
+    public long getNodeId() {
+        return node >>> SHARD_BITS;
+    }
+
+    public int getShard() {
+        return (int) (node & SHARD_MASK);
+    }
+
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH;
+    }
+
+    public static long nodeOf(long id) {
+        return (id >>> SEQUENCE_BITS) & MAX_NODE;
+    }
+
+    public static long nodeIdOf(long id) {
+        return nodeOf(id) >>> SHARD_BITS;
+    }
+
+    public static int shardOf(long id) {
+        return (int) (nodeOf(id) & SHARD_MASK);
+    }
+}
@@ -0,0 +1,16 @@
+package study.data_jpa.entity;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import study.data_jpa.shard.ShardContext;
+import study.data_jpa.shard.ShardIds;
+
+public class TimeOrderedIdentifierGenerator implements IdentifierGenerator {
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        //shard 가 지정되어 있으면 id 에 shard 번호를 넣는다
+        Integer shard = ShardContext.current();
+        return shard == null ? TimeOrderedIdGenerator.shared().nextId() : ShardIds.nextId(shard);
+    }
+}
@@ -0,0 +1,29 @@
+package study.data_jpa.event;
+
+import study.data_jpa.entity.Member;
+
+import java.time.LocalDateTime;
+
+/**
+ * 커밋된 회원 변경을 받는 인메모리 구조(검색 인덱스, 리드 모델 등)가 구현한다.
+ * 커밋 이후 호출되므로 여기서 예외를 던져도 트랜잭션에는 영향이 없다.
+ */
+public interface MemberChangeListener {
+
+    void memberSaved(Member member);
+
+    void memberDeleted(Long memberId);
+
+    //bulk 나이 증가 (age >= fromAge 인 회원 모두 +1)
+    default void membersAgeShifted(int fromAge, LocalDateTime modifiedAt) {
+    }
+
+    //bulk 팀 삭제 (해당 팀 회원 모두 팀 없음으로)
+    default void teamRemoved(Long teamId, LocalDateTime modifiedAt) {
+    }
+
+    //팀 이름 변경 (해당 팀 회원이 들고 있는 팀 이름)
+    default void teamRenamed(Long teamId, String name, LocalDateTime modifiedAt) {
+    }
+
+}
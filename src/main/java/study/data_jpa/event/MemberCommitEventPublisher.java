@@ -0,0 +1,143 @@
+package study.data_jpa.event;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.data_jpa.entity.Member;
+import study.data_jpa.entity.Team;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Hibernate 커밋 이후 이벤트를 {@link MemberChangeListener} 빈들에게 전달한다.
+ * 회원이 들고 있는 팀 이름도 바뀌므로 팀 이름 변경도 함께 전달한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberCommitEventPublisher
+        implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectProvider<MemberChangeListener> listeners;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member member) {
+            publish(listener -> listener.memberSaved(member));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member member) {
+            publish(listener -> listener.memberSaved(member));
+        } else if (event.getEntity() instanceof Team team && nameChanged(event)) {
+            publish(listener -> listener.teamRenamed(team.getId(), team.getName(), team.getLastModifiedDate()));
+        }
+    }
+
+    //이전 상태를 모르면 (detached merge 등) 바뀐 것으로 본다
+    private static boolean nameChanged(PostUpdateEvent event) {
+        if (event.getOldState() == null) {
+            return true;
+        }
+        int name = Arrays.asList(event.getPersister().getPropertyNames()).indexOf("name");
+        return !Objects.equals(event.getOldState()[name], event.getState()[name]);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Long memberId = (Long) event.getId();
+            publish(listener -> listener.memberDeleted(memberId));
+        }
+    }
+
+    /**
+     * 엔티티 이벤트를 거치지 않는 bulk 경로(아카이브, 일괄 삭제 등)에서 호출한다. 트랜잭션 중이면 커밋 후에 전달한다.
+     */
+    public void publishDeleted(Collection<Long> memberIds) {
+        List<Long> ids = List.copyOf(memberIds);
+        afterCommit(() -> ids.forEach(id -> publish(listener -> listener.memberDeleted(id))));
+    }
+
+    public void publishAgeShifted(int fromAge, LocalDateTime modifiedAt) {
+        afterCommit(() -> publish(listener -> listener.membersAgeShifted(fromAge, modifiedAt)));
+    }
+
+    public void publishTeamRemoved(Long teamId, LocalDateTime modifiedAt) {
+        afterCommit(() -> publish(listener -> listener.teamRemoved(teamId, modifiedAt)));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return Member.class.isAssignableFrom(persister.getMappedClass())
+                || Team.class.isAssignableFrom(persister.getMappedClass());
+    }
+
+    private void publish(Consumer<MemberChangeListener> action) {
+        listeners.orderedStream().forEach(listener -> {
+            try {
+                action.accept(listener);
+            } catch (RuntimeException e) {
+                log.warn("member change listener failed: {}", listener.getClass().getSimpleName(), e);
+            }
+        });
+    }
+}
@@ -0,0 +1,64 @@
+package study.data_jpa.event;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.data_jpa.shard.ConditionalOnShardingDisabled;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * 보존 기간이 지난 member_tombstone 을 청크 단위로 지운다.
+ * 그보다 오래된 워터마크로 변경 피드를 요청하면 resyncRequired 로 응답한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnShardingDisabled
+public class MemberTombstonePruner {
+
+    private final EntityManager em;
+    private final TransactionTemplate chunkTx;
+    private final Duration retention;
+    private final int chunkSize;
+
+    public MemberTombstonePruner(EntityManager em,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${data-jpa.tombstone.retention:30d}") Duration retention,
+                                 @Value("${data-jpa.tombstone.prune-chunk-size:1000}") int chunkSize) {
+        this.em = em;
+        this.chunkTx = new TransactionTemplate(transactionManager);
+        this.chunkTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.retention = retention;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(cron = "${data-jpa.tombstone.prune-cron:0 30 4 * * *}")
+    public long prune() {
+        return pruneBefore(LocalDateTime.now().minus(retention));
+    }
+
+    public long pruneBefore(LocalDateTime cutoff) {
+        long pruned = 0;
+        while (true) {
+            int deleted = chunkTx.execute(status -> em.createNativeQuery(
+                            "delete from member_tombstone where deleted_date < :cutoff limit :limit")
+                    .setParameter("cutoff", cutoff)
+                    .setParameter("limit", chunkSize)
+                    .executeUpdate());
+            pruned += deleted;
+            if (deleted < chunkSize) {
+                break;
+            }
+        }
+        if (pruned > 0) {
+            log.info("pruned {} member tombstones before {}", pruned, cutoff);
+        }
+        return pruned;
+    }
+}
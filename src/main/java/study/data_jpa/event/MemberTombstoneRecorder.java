@@ -0,0 +1,59 @@
+package study.data_jpa.event;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import study.data_jpa.entity.Member;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * 회원 삭제를 같은 트랜잭션 안에서 member_tombstone 에 남긴다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberTombstoneRecorder implements PostDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void register() {
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        Long memberId = (Long) event.getId();
+        LocalDateTime deletedDate = LocalDateTime.now();
+        event.getSession().getActionQueue().registerProcess((BeforeTransactionCompletionProcess) session ->
+                session.doWork(connection -> {
+                    try (PreparedStatement insert = connection.prepareStatement(
+                            "insert into member_tombstone (member_id, deleted_date) values (?, ?)")) {
+                        insert.setLong(1, memberId);
+                        insert.setTimestamp(2, Timestamp.valueOf(deletedDate));
+                        insert.executeUpdate();
+                    }
+                }));
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+}
@@ -0,0 +1,105 @@
+package study.data_jpa.event;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.event.spi.PreDeleteEvent;
+import org.hibernate.event.spi.PreDeleteEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import study.data_jpa.entity.Team;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 변경 피드는 회원의 팀 이름도 내보내므로, 팀 이름 변경 / 팀 삭제를 같은 트랜잭션 안에서 소속 회원의 수정 시각에 반영한다.
+ * 팀 삭제 시 남아 있는 회원은 팀에서 분리하고 팀 통계를 지운다 (MemberPurger.purgeTeam 과 같은 결과).
+ */
+@Component
+@RequiredArgsConstructor
+public class TeamChangeRecorder implements PostUpdateEventListener, PreDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final MemberCommitEventPublisher memberCommitEventPublisher;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.PRE_DELETE, this);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Team) || !nameChanged(event)) {
+            return;
+        }
+        Long teamId = (Long) event.getId();
+        LocalDateTime now = LocalDateTime.now();
+        event.getSession().getActionQueue().registerProcess((BeforeTransactionCompletionProcess) session ->
+                session.doWork(connection -> {
+                    try (PreparedStatement update = connection.prepareStatement(
+                            "update member set last_modified_date = ? where team_id = ?")) {
+                        update.setTimestamp(1, Timestamp.valueOf(now));
+                        update.setLong(2, teamId);
+                        update.executeUpdate();
+                    }
+                }));
+    }
+
+    @Override
+    public boolean onPreDelete(PreDeleteEvent event) {
+        if (!(event.getEntity() instanceof Team)) {
+            return false;
+        }
+        Long teamId = (Long) event.getId();
+        LocalDateTime now = LocalDateTime.now();
+        //팀 행을 지우기 전이어야 FK 에 걸리지 않는다. flush 중이므로 쿼리(자동 flush)를 쓰지 않고 JDBC 로 바로 실행한다
+        event.getSession().doWork(connection -> {
+            try (PreparedStatement detach = connection.prepareStatement(
+                    "update member set team_id = null, last_modified_date = ? where team_id = ?")) {
+                detach.setTimestamp(1, Timestamp.valueOf(now));
+                detach.setLong(2, teamId);
+                detach.executeUpdate();
+            }
+        });
+        //통계는 같은 트랜잭션의 회원 delta 가 반영된 뒤에 지운다
+        event.getSession().getActionQueue().registerProcess((BeforeTransactionCompletionProcess) session ->
+                session.doWork(connection -> {
+                    for (String table : new String[]{"team_age_histogram", "team_age_stats"}) {
+                        try (PreparedStatement delete = connection.prepareStatement("delete from " + table + " where team_id = ?")) {
+                            delete.setLong(1, teamId);
+                            delete.executeUpdate();
+                        }
+                    }
+                }));
+        memberCommitEventPublisher.publishTeamRemoved(teamId, now);
+        return false;
+    }
+
+    //이전 상태를 모르면 (detached merge 등) 바뀐 것으로 본다
+    private static boolean nameChanged(PostUpdateEvent event) {
+        if (event.getOldState() == null) {
+            return true;
+        }
+        int name = Arrays.asList(event.getPersister().getPropertyNames()).indexOf("name");
+        return !Objects.equals(event.getOldState()[name], event.getState()[name]);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+}
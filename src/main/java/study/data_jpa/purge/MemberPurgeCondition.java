@@ -0,0 +1,25 @@
+package study.data_jpa.purge;
+
+import java.time.LocalDateTime;
+
+/**
+ * 일괄 삭제할 회원 조건. null 인 항목은 조건에서 빠지고, 모두 null 이면 거부한다.
+ */
+public record MemberPurgeCondition(Long teamId, Integer ageGoe, Integer ageLoe, LocalDateTime lastModifiedBefore) {
+
+    public static MemberPurgeCondition team(Long teamId) {
+        return new MemberPurgeCondition(teamId, null, null, null);
+    }
+
+    public static MemberPurgeCondition ageBetween(Integer ageGoe, Integer ageLoe) {
+        return new MemberPurgeCondition(null, ageGoe, ageLoe, null);
+    }
+
+    public static MemberPurgeCondition modifiedBefore(LocalDateTime cutoff) {
+        return new MemberPurgeCondition(null, null, null, cutoff);
+    }
+
+    public boolean isEmpty() {
+        return teamId == null && ageGoe == null && ageLoe == null && lastModifiedBefore == null;
+    }
+}
@@ -0,0 +1,263 @@
+package study.data_jpa.purge;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.data_jpa.entity.Member;
+import study.data_jpa.entity.Team;
+import study.data_jpa.event.MemberCommitEventPublisher;
+import study.data_jpa.shard.ConditionalOnShardingDisabled;
+import study.data_jpa.stats.TeamAgeDeltas;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 엔티티를 읽지 않고 조건에 맞는 회원 / 팀을 청크 단위 set 기반 DELETE / UPDATE 로 지운다.
+ * 청크마다 별도 트랜잭션으로 커밋하고 id 목록만 들고 있으므로 건수가 많아도 힙 사용량은 청크 크기에 비례한다.
+ * 중간에 멈춰도 다시 실행하면 남은 행부터 이어서 지운다.
+ * 호출한 쪽의 트랜잭션(또는 open-in-view)에 묶인 영속성 컨텍스트에서도 지운 엔티티를 분리한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnShardingDisabled
+public class MemberPurger {
+
+    private final EntityManager em;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate chunkTx;
+    private final MemberCommitEventPublisher memberCommitEventPublisher;
+    private final int chunkSize;
+
+    public MemberPurger(EntityManager em,
+                        EntityManagerFactory entityManagerFactory,
+                        PlatformTransactionManager transactionManager,
+                        MemberCommitEventPublisher memberCommitEventPublisher,
+                        @Value("${data-jpa.purge.chunk-size:1000}") int chunkSize) {
+        this.em = em;
+        this.entityManagerFactory = entityManagerFactory;
+        this.chunkTx = new TransactionTemplate(transactionManager);
+        this.chunkTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.memberCommitEventPublisher = memberCommitEventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    public long purgeMembers(MemberPurgeCondition condition) {
+        return purgeMembers(condition, progress -> {
+        });
+    }
+
+    /**
+     * 조건에 맞는 회원을 삭제하고 삭제한 회원 수를 반환한다. 변경 피드를 위해 tombstone 도 함께 남긴다.
+     */
+    public long purgeMembers(MemberPurgeCondition condition, Consumer<PurgeProgress> progress) {
+        if (condition.isEmpty()) {
+            throw new IllegalArgumentException("purge condition must not be empty");
+        }
+        SessionImplementor caller = callerSession();
+        long start = System.currentTimeMillis();
+        long purged = 0;
+        int chunks = 0;
+        long lastId = Long.MIN_VALUE;
+        while (true) {
+            long from = lastId;
+            List<Long> ids = chunkTx.execute(status -> purgeChunk(condition, from));
+            if (ids.isEmpty()) {
+                break;
+            }
+            evict(caller, Member.class, ids);
+            purged += ids.size();
+            chunks++;
+            lastId = ids.get(ids.size() - 1);
+            report(progress, new PurgeProgress("member", purged, chunks, System.currentTimeMillis() - start));
+        }
+        return purged;
+    }
+
+    public long purgeTeam(Long teamId) {
+        return purgeTeam(teamId, progress -> {
+        });
+    }
+
+    /**
+     * 팀 회원을 청크 단위로 팀에서 분리한 뒤 팀과 팀 통계를 삭제한다. 분리한 회원 수를 반환한다.
+     */
+    public long purgeTeam(Long teamId, Consumer<PurgeProgress> progress) {
+        SessionImplementor caller = callerSession();
+        long start = System.currentTimeMillis();
+        long detached = 0;
+        int chunks = 0;
+        while (true) {
+            List<Long> ids = chunkTx.execute(status -> detachChunk(teamId));
+            if (ids.isEmpty()) {
+                break;
+            }
+            evict(caller, Member.class, ids);
+            detached += ids.size();
+            chunks++;
+            report(progress, new PurgeProgress("team " + teamId, detached, chunks, System.currentTimeMillis() - start));
+        }
+        detached += chunkTx.execute(status -> removeTeam(teamId));
+        evict(caller, Team.class, List.of(teamId));
+        return detached;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> purgeChunk(MemberPurgeCondition condition, long lastId) {
+        //지우는 동안 수정되지 않도록 대상 행을 잠근다
+        Query select = em.createNativeQuery("select member_id from member where " + where(condition)
+                + " order by member_id limit :limit for update");
+        bind(select, condition)
+                .setParameter("lastId", lastId)
+                .setParameter("limit", chunkSize);
+        List<Long> ids = ((List<Number>) select.getResultList()).stream()
+                .map(Number::longValue)
+                .toList();
+        if (ids.isEmpty()) {
+            return ids;
+        }
+
+        em.unwrap(Session.class).doWork(TeamAgeDeltas.removing(em, ids)::apply);
+        em.createNativeQuery("insert into member_tombstone (member_id, deleted_date)"
+                        + " select member_id, :now from member where member_id in (:ids)")
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("ids", ids)
+                .executeUpdate();
+        em.createNativeQuery("delete from member where member_id in (:ids)")
+                .setParameter("ids", ids)
+                .executeUpdate();
+
+        memberCommitEventPublisher.publishDeleted(ids);
+        return ids;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> detachChunk(Long teamId) {
+        List<Long> ids = ((List<Number>) em.createNativeQuery(
+                        "select member_id from member where team_id = :teamId order by member_id limit :limit for update")
+                .setParameter("teamId", teamId)
+                .setParameter("limit", chunkSize)
+                .getResultList())
+                .stream()
+                .map(Number::longValue)
+                .toList();
+        if (ids.isEmpty()) {
+            return ids;
+        }
+
+        em.unwrap(Session.class).doWork(TeamAgeDeltas.removing(em, ids)::apply);
+        em.createNativeQuery("update member set team_id = null, last_modified_date = :now where member_id in (:ids)")
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("ids", ids)
+                .executeUpdate();
+
+        return ids;
+    }
+
+    private int removeTeam(Long teamId) {
+        LocalDateTime now = LocalDateTime.now();
+        //청크 사이에 팀에 들어온 회원까지 분리 (통계 행은 아래에서 통째로 지운다)
+        int stragglers = em.createNativeQuery("update member set team_id = null, last_modified_date = :now where team_id = :teamId")
+                .setParameter("now", now)
+                .setParameter("teamId", teamId)
+                .executeUpdate();
+        em.createNativeQuery("delete from team_age_histogram where team_id = :teamId")
+                .setParameter("teamId", teamId)
+                .executeUpdate();
+        em.createNativeQuery("delete from team_age_stats where team_id = :teamId")
+                .setParameter("teamId", teamId)
+                .executeUpdate();
+        int deleted = em.createNativeQuery("delete from team where team_id = :teamId")
+                .setParameter("teamId", teamId)
+                .executeUpdate();
+
+        if (deleted > 0) {
+            memberCommitEventPublisher.publishTeamRemoved(teamId, now);
+        }
+        log.info("purged team {} (deleted={}, late members={})", teamId, deleted, stragglers);
+        return stragglers;
+    }
+
+    private static String where(MemberPurgeCondition condition) {
+        StringBuilder where = new StringBuilder("member_id > :lastId");
+        if (condition.teamId() != null) {
+            where.append(" and team_id = :teamId");
+        }
+        if (condition.ageGoe() != null) {
+            where.append(" and age >= :ageGoe");
+        }
+        if (condition.ageLoe() != null) {
+            where.append(" and age <= :ageLoe");
+        }
+        if (condition.lastModifiedBefore() != null) {
+            where.append(" and last_modified_date < :cutoff");
+        }
+        return where.toString();
+    }
+
+    private static Query bind(Query query, MemberPurgeCondition condition) {
+        if (condition.teamId() != null) {
+            query.setParameter("teamId", condition.teamId());
+        }
+        if (condition.ageGoe() != null) {
+            query.setParameter("ageGoe", condition.ageGoe());
+        }
+        if (condition.ageLoe() != null) {
+            query.setParameter("ageLoe", condition.ageLoe());
+        }
+        if (condition.lastModifiedBefore() != null) {
+            query.setParameter("cutoff", condition.lastModifiedBefore());
+        }
+        return query;
+    }
+
+    //청크는 REQUIRES_NEW 로 새 영속성 컨텍스트에서 실행되므로 호출한 쪽 컨텍스트는 청크 밖에서 미리 찾아 둔다
+    private SessionImplementor callerSession() {
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(entityManagerFactory);
+        return holder == null ? null : holder.getEntityManager().unwrap(SessionImplementor.class);
+    }
+
+    //bulk 쿼리는 영속성 컨텍스트를 거치지 않으므로 호출한 쪽에 남아 있는 엔티티 / 프록시와 2차 캐시를 직접 비운다
+    private void evict(SessionImplementor caller, Class<?> type, Collection<Long> ids) {
+        Cache cache = entityManagerFactory.getCache();
+        for (Long id : ids) {
+            cache.evict(type, id);
+        }
+        if (caller == null) {
+            return;
+        }
+        PersistenceContext persistenceContext = caller.getPersistenceContextInternal();
+        EntityPersister persister = caller.getFactory().getMappingMetamodel().getEntityDescriptor(type);
+        for (Long id : ids) {
+            EntityKey key = caller.generateEntityKey(id, persister);
+            Object entity = persistenceContext.getEntity(key);
+            if (entity != null) {
+                caller.detach(entity);
+            } else {
+                persistenceContext.removeProxy(key);
+            }
+        }
+    }
+
+    private void report(Consumer<PurgeProgress> progress, PurgeProgress current) {
+        log.info("purged {} {} rows in {} chunks ({} rows/s)", current.processed(), current.target(), current.chunks(),
+                Math.round(current.rowsPerSecond()));
+        progress.accept(current);
+    }
+}
@@ -0,0 +1,11 @@
+package study.data_jpa.purge;
+
+/**
+ * 청크 하나를 커밋할 때마다 전달되는 진행 상황.
+ */
+public record PurgeProgress(String target, long processed, int chunks, long elapsedMillis) {
+
+    public double rowsPerSecond() {
+        return elapsedMillis == 0 ? processed : processed * 1000.0 / elapsedMillis;
+    }
+}
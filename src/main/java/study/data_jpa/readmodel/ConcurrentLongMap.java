@@ -0,0 +1,250 @@
+package study.data_jpa.readmodel;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * long 키 해시맵. 키를 박싱하지 않고(open addressing) 세그먼트마다 StampedLock 으로 보호한다.
+ * 조회는 낙관적 읽기라 쓰기와 겹치지 않으면 락을 잡지 않는다. null 값은 넣을 수 없다.
+ */
+public class ConcurrentLongMap<V> {
+
+    private static final int SEGMENT_BITS = 6;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+
+    public ConcurrentLongMap() {
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int hash = hash(key);
+        return (V) segmentFor(hash).get(key, hash);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        int hash = hash(key);
+        return (V) segmentFor(hash).compute(key, hash, old -> value);
+    }
+
+    /**
+     * 키 단위 원자적 갱신. remapping 이 null 을 돌려주면 제거한다. 새 값을 돌려준다.
+     */
+    @SuppressWarnings("unchecked")
+    public V compute(long key, UnaryOperator<V> remapping) {
+        int hash = hash(key);
+        Segment segment = segmentFor(hash);
+        return (V) segment.computeAndGet(key, hash, old -> remapping.apply((V) old));
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int hash = hash(key);
+        return (V) segmentFor(hash).compute(key, hash, old -> null);
+    }
+
+    //모든 값을 세그먼트 단위로 바꾼다 (세그먼트 하나씩 잠근다)
+    @SuppressWarnings("unchecked")
+    public void replaceAll(UnaryOperator<V> function) {
+        for (Segment segment : segments) {
+            segment.replaceAll(value -> function.apply((V) value));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<Long, V> action) {
+        for (Segment segment : segments) {
+            segment.forEach((key, value) -> action.accept(key, (V) value));
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[hash >>> (Integer.SIZE - SEGMENT_BITS)];
+    }
+
+    static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static final class Segment {
+
+        private final StampedLock lock = new StampedLock();
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private Object[] values = new Object[INITIAL_CAPACITY];
+        private int size;
+
+        Object get(long key, int hash) {
+            long stamp = lock.tryOptimisticRead();
+            Object value = find(keys, values, key, hash);
+            if (lock.validate(stamp)) {
+                return value;
+            }
+            stamp = lock.readLock();
+            try {
+                return find(keys, values, key, hash);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        //낙관적 읽기 중에는 배열이 바뀌고 있을 수 있으므로 범위만 지키고 결과는 validate 로 판단한다
+        private static Object find(long[] keys, Object[] values, long key, int hash) {
+            int mask = Math.min(keys.length, values.length) - 1;
+            for (int i = hash & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+                Object value = values[i];
+                if (value == null) {
+                    return null;
+                }
+                if (keys[i] == key) {
+                    return value;
+                }
+            }
+            return null;
+        }
+
+        //이전 값을 돌려준다
+        Object compute(long key, int hash, UnaryOperator<Object> remapping) {
+            long stamp = lock.writeLock();
+            try {
+                return update(key, hash, remapping)[0];
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        //새 값을 돌려준다
+        Object computeAndGet(long key, int hash, UnaryOperator<Object> remapping) {
+            long stamp = lock.writeLock();
+            try {
+                return update(key, hash, remapping)[1];
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private Object[] update(long key, int hash, UnaryOperator<Object> remapping) {
+            int mask = values.length - 1;
+            int i = hash & mask;
+            while (values[i] != null && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            Object old = values[i];
+            Object value = remapping.apply(old);
+            if (value == null) {
+                if (old != null) {
+                    delete(i);
+                }
+            } else if (old != null) {
+                values[i] = value;
+            } else {
+                keys[i] = key;
+                values[i] = value;
+                if (++size * 4 > values.length * 3) {
+                    resize();
+                }
+            }
+            return new Object[]{old, value};
+        }
+
+        //backward shift - 삭제 표시 없이 뒤따르는 항목을 당겨서 탐색 사슬을 유지한다
+        private void delete(int slot) {
+            int mask = values.length - 1;
+            int i = slot;
+            int j = slot;
+            values[i] = null;
+            size--;
+            while (true) {
+                j = (j + 1) & mask;
+                if (values[j] == null) {
+                    return;
+                }
+                int ideal = hash(keys[j]) & mask;
+                boolean stays = i <= j ? (i < ideal && ideal <= j) : (i < ideal || ideal <= j);
+                if (!stays) {
+                    keys[i] = keys[j];
+                    values[i] = values[j];
+                    values[j] = null;
+                    i = j;
+                }
+            }
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+            long[] newKeys = new long[oldKeys.length * 2];
+            Object[] newValues = new Object[oldValues.length * 2];
+            int mask = newValues.length - 1;
+            for (int i = 0; i < oldValues.length; i++) {
+                if (oldValues[i] != null) {
+                    int j = hash(oldKeys[i]) & mask;
+                    while (newValues[j] != null) {
+                        j = (j + 1) & mask;
+                    }
+                    newKeys[j] = oldKeys[i];
+                    newValues[j] = oldValues[i];
+                }
+            }
+            keys = newKeys;
+            values = newValues;
+        }
+
+        void replaceAll(UnaryOperator<Object> function) {
+            long stamp = lock.writeLock();
+            try {
+                for (int i = 0; i < values.length; i++) {
+                    if (values[i] != null) {
+                        values[i] = function.apply(values[i]);
+                    }
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void forEach(BiConsumer<Long, Object> action) {
+            long stamp = lock.readLock();
+            try {
+                for (int i = 0; i < values.length; i++) {
+                    if (values[i] != null) {
+                        action.accept(keys[i], values[i]);
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        int size() {
+            long stamp = lock.tryOptimisticRead();
+            int result = size;
+            if (lock.validate(stamp)) {
+                return result;
+            }
+            stamp = lock.readLock();
+            try {
+                return size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package study.data_jpa.readmodel;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.data_jpa.entity.Member;
+import study.data_jpa.entity.Team;
+import study.data_jpa.event.MemberChangeListener;
+import study.data_jpa.shard.ConditionalOnShardingDisabled;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 회원 조회용 인메모리 리드 모델. 커밋 이벤트로 갱신되며 조회 시 DB / 영속성 컨텍스트를 쓰지 않는다.
+ * 이 노드에서 커밋된 변경만 반영하므로 여러 노드로 운영하면 다른 노드의 변경은 재기동 전까지 보이지 않는다.
+ * 적재가 끝나기 전(isReady() == false)에는 호출하는 쪽이 DB 로 조회해야 한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "data-jpa.read-model.enabled", havingValue = "true")
+@ConditionalOnShardingDisabled
+public class MemberReadModel implements MemberChangeListener {
+
+    private static final int LOAD_CHUNK = 10_000;
+
+    private final EntityManager em;
+    private final TransactionTemplate readOnlyTx;
+
+    private final ConcurrentLongMap<MemberSnapshot> snapshots = new ConcurrentLongMap<>();
+    private final Map<Long, TeamName> teamNames = new ConcurrentHashMap<>();
+    private final Set<Long> deletedWhileLoading = ConcurrentHashMap.newKeySet();
+
+    //청크 적용과 bulk 변경(나이 증가, 팀 삭제 / 이름 변경)은 서로 끼어들지 않는다
+    private final Object bulkLock = new Object();
+    //적재 중에 커밋된 bulk 변경 - 그 전에 읽혀서 아직 적용되지 않은 행에 다시 적용한다 (bulkLock)
+    private final List<AgeShift> shiftsWhileLoading = new ArrayList<>();
+    private final Set<Long> teamsRemovedWhileLoading = new HashSet<>();
+
+    //반영한 변경 수 - 응답의 버전이나 캐시 키로 쓸 수 있다
+    private final AtomicLong version = new AtomicLong();
+    private volatile long lastAppliedMillis;
+    private volatile boolean ready;
+
+    public MemberReadModel(EntityManager em, PlatformTransactionManager transactionManager) {
+        this.em = em;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.readOnlyTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Thread loader = new Thread(this::load, "member-read-model-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    void load() {
+        long last = Long.MIN_VALUE;
+        long loaded = 0;
+        while (true) {
+            List<Object[]> rows = readChunk(last);
+            applyChunk(rows);
+            loaded += rows.size();
+            if (rows.size() < LOAD_CHUNK) {
+                break;
+            }
+            last = (Long) rows.get(rows.size() - 1)[0];
+        }
+        synchronized (bulkLock) {
+            ready = true;
+            shiftsWhileLoading.clear();
+            teamsRemovedWhileLoading.clear();
+            deletedWhileLoading.clear();
+        }
+        log.info("member read model loaded: {} members", loaded);
+    }
+
+    List<Object[]> readChunk(long last) {
+        return readOnlyTx.execute(status -> em.createQuery(
+                        "select m.id, m.username, m.age, t.id, t.name, m.lastModifiedDate, t.lastModifiedDate"
+                                + " from Member m left join m.team t where m.id > :last order by m.id", Object[].class)
+                .setParameter("last", last)
+                .setMaxResults(LOAD_CHUNK)
+                .getResultList());
+    }
+
+    void applyChunk(List<Object[]> rows) {
+        synchronized (bulkLock) {
+            for (Object[] row : rows) {
+                Long id = (Long) row[0];
+                if (deletedWhileLoading.contains(id)) {
+                    continue;
+                }
+                Long teamId = (Long) row[3];
+                String teamName = null;
+                if (teamId != null && teamsRemovedWhileLoading.contains(teamId)) {
+                    teamId = null;
+                } else if (teamId != null) {
+                    //행을 읽은 뒤 바뀐 팀 이름이 있으면 그쪽이 더 최신
+                    teamName = teamNames.merge(teamId, new TeamName((String) row[4], (LocalDateTime) row[6]), TeamName::newer)
+                            .name();
+                }
+                MemberSnapshot snapshot = new MemberSnapshot(id, (String) row[1], (Integer) row[2], teamId, teamName,
+                        (LocalDateTime) row[5]);
+                //행을 읽은 뒤 커밋된 나이 증가 - 읽기 전에 커밋된 것은 이미 반영되어 수정 시각이 같거나 늦다
+                for (AgeShift shift : shiftsWhileLoading) {
+                    snapshot = shift.applyIfMissed(snapshot);
+                }
+                //적재 중에 커밋된 이벤트가 더 최신이면 덮어쓰지 않는다
+                apply(snapshot);
+            }
+        }
+    }
+
+    public Optional<MemberSnapshot> find(long id) {
+        MemberSnapshot snapshot = snapshots.get(id);
+        if (snapshot != null && snapshot.teamId() != null && snapshot.teamName() == null) {
+            //이벤트 시점에 팀이 초기화되지 않은 프록시였던 경우 - 팀 이름은 한 번만 읽어 캐시
+            TeamName teamName = teamNames.computeIfAbsent(snapshot.teamId(), this::loadTeamName);
+            if (teamName != null) {
+                snapshot = snapshots.compute(id, current -> current == null || current.teamName() != null
+                        ? current
+                        : current.withTeamName(teamName.name()));
+            }
+        }
+        return Optional.ofNullable(snapshot);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    //마지막으로 변경을 반영한 시각 (epoch millis, 없으면 0)
+    public long getLastAppliedMillis() {
+        return lastAppliedMillis;
+    }
+
+    public int size() {
+        return snapshots.size();
+    }
+
+    @Override
+    public void memberSaved(Member member) {
+        Long teamId = teamIdOf(member.getTeam());
+        String teamName = null;
+        if (teamId != null) {
+            TeamName cached = Hibernate.isInitialized(member.getTeam())
+                    ? teamNames.computeIfAbsent(teamId, id -> new TeamName(member.getTeam().getName(), member.getTeam().getLastModifiedDate()))
+                    : teamNames.get(teamId);
+            teamName = cached == null ? null : cached.name();
+        }
+        apply(new MemberSnapshot(member.getId(), member.getUsername(), member.getAge(), teamId, teamName,
+                member.getLastModifiedDate()));
+
+        //그 사이 팀 이름이 바뀌었으면 (이름 변경 이벤트가 이 회원을 놓쳤을 수 있다) 다시 맞춘다
+        TeamName latest = teamId == null ? null : teamNames.get(teamId);
+        if (latest != null && !Objects.equals(latest.name(), teamName)) {
+            snapshots.compute(member.getId(), current -> current != null && teamId.equals(current.teamId())
+                    ? current.withTeamName(latest.name())
+                    : current);
+        }
+    }
+
+    @Override
+    public void memberDeleted(Long memberId) {
+        //청크 적재의 삭제 확인 -> 반영 사이에 끼어들지 않도록 같은 잠금 안에서 기록하고 지운다
+        synchronized (bulkLock) {
+            if (!ready) {
+                deletedWhileLoading.add(memberId);
+            }
+            snapshots.remove(memberId);
+        }
+        changed();
+    }
+
+    @Override
+    public void membersAgeShifted(int fromAge, LocalDateTime modifiedAt) {
+        synchronized (bulkLock) {
+            if (!ready) {
+                shiftsWhileLoading.add(new AgeShift(fromAge, modifiedAt));
+                shiftsWhileLoading.sort(Comparator.comparing(AgeShift::modifiedAt));
+            }
+            snapshots.replaceAll(snapshot -> snapshot.age() >= fromAge
+                    ? snapshot.withAge(snapshot.age() + 1, modifiedAt)
+                    : snapshot);
+        }
+        changed();
+    }
+
+    @Override
+    public void teamRemoved(Long teamId, LocalDateTime modifiedAt) {
+        synchronized (bulkLock) {
+            if (!ready) {
+                teamsRemovedWhileLoading.add(teamId);
+            }
+            snapshots.replaceAll(snapshot -> teamId.equals(snapshot.teamId())
+                    ? snapshot.withoutTeam(modifiedAt)
+                    : snapshot);
+            teamNames.remove(teamId);
+        }
+        changed();
+    }
+
+    @Override
+    public void teamRenamed(Long teamId, String name, LocalDateTime modifiedAt) {
+        synchronized (bulkLock) {
+            //순서를 바꿔 도착한 이전 이름으로 되돌리지 않는다
+            String latest = teamNames.merge(teamId, new TeamName(name, modifiedAt), TeamName::newer).name();
+            snapshots.replaceAll(snapshot -> teamId.equals(snapshot.teamId()) && !Objects.equals(latest, snapshot.teamName())
+                    ? snapshot.withTeamName(latest)
+                    : snapshot);
+        }
+        changed();
+    }
+
+    private void apply(MemberSnapshot snapshot) {
+        snapshots.compute(snapshot.id(), current -> snapshot.isNewerThan(current) ? snapshot : current);
+        changed();
+    }
+
+    private void changed() {
+        version.incrementAndGet();
+        lastAppliedMillis = System.currentTimeMillis();
+    }
+
+    private TeamName loadTeamName(Long teamId) {
+        return readOnlyTx.execute(status -> em.createQuery(
+                        "select t.name, t.lastModifiedDate from Team t where t.id = :id", Object[].class)
+                .setParameter("id", teamId)
+                .getResultStream()
+                .findFirst()
+                .map(row -> new TeamName((String) row[0], (LocalDateTime) row[1]))
+                .orElse(null));
+    }
+
+    private static Long teamIdOf(Team team) {
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy proxy) {
+            return (Long) proxy.getHibernateLazyInitializer().getIdentifier();
+        }
+        return team.getId();
+    }
+
+    //팀 이름과 그 이름이 된 시각 - 이벤트와 적재 결과 중 더 최신 이름을 고른다
+    private record TeamName(String name, LocalDateTime modified) {
+
+        TeamName newer(TeamName other) {
+            return other.modified != null && (modified == null || other.modified.isAfter(modified)) ? other : this;
+        }
+    }
+
+    private record AgeShift(int fromAge, LocalDateTime modifiedAt) {
+
+        //bulk update 는 수정 시각을 modifiedAt 으로 바꾸므로 그보다 이전 행만 이 증가를 놓친 것이다 (DB 는 마이크로초까지 저장)
+        MemberSnapshot applyIfMissed(MemberSnapshot snapshot) {
+            boolean missed = snapshot.lastModified() == null
+                    || snapshot.lastModified().isBefore(modifiedAt.truncatedTo(ChronoUnit.MICROS));
+            return missed && snapshot.age() >= fromAge
+                    ? snapshot.withAge(snapshot.age() + 1, modifiedAt)
+                    : snapshot;
+        }
+    }
+}
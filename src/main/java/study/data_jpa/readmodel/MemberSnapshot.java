@@ -0,0 +1,27 @@
+package study.data_jpa.readmodel;
+
+import java.time.LocalDateTime;
+
+/**
+ * 리드 모델에 보관하는 회원의 불변 스냅샷.
+ */
+public record MemberSnapshot(long id, String username, int age, Long teamId, String teamName, LocalDateTime lastModified) {
+
+    MemberSnapshot withAge(int age, LocalDateTime lastModified) {
+        return new MemberSnapshot(id, username, age, teamId, teamName, lastModified);
+    }
+
+    MemberSnapshot withoutTeam(LocalDateTime lastModified) {
+        return new MemberSnapshot(id, username, age, null, null, lastModified);
+    }
+
+    MemberSnapshot withTeamName(String teamName) {
+        return new MemberSnapshot(id, username, age, teamId, teamName, lastModified);
+    }
+
+    //같은 회원의 이벤트가 순서를 바꿔 도착해도 최신 값을 유지
+    boolean isNewerThan(MemberSnapshot other) {
+        return other == null || lastModified == null || other.lastModified == null
+                || !lastModified.isBefore(other.lastModified);
+    }
+}
@@ -0,0 +1,12 @@
+package study.data_jpa.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import study.data_jpa.entity.ArchivedMember;
+
+import java.util.List;
+
+public interface ArchivedMemberRepository extends JpaRepository<ArchivedMember, Long> {
+
+    List<ArchivedMember> findByUsername(String username);
+
+}
@@ -1,8 +1,7 @@
 package study.data_jpa.repository;
 
-import org.springframework.data.jpa.repository.JpaRepository;
 import study.data_jpa.entity.Item;
 
-public interface ItemRepository extends JpaRepository<Item, Long> {
+public interface ItemRepository extends MultiGetRepository<Item, String> {
 
 }
@@ -0,0 +1,35 @@
+package study.data_jpa.repository;
+
+import java.util.Locale;
+
+/**
+ * 요청별로 고르는 회원 조회 범위. 엔티티 그래프 이름은 Member 의 @NamedEntityGraph 와 맞춘다.
+ */
+public enum MemberFetchPlan {
+
+    //회원 컬럼만 (team 은 지연 로딩)
+    SUMMARY(null),
+    //team 까지 한 번에
+    WITH_TEAM("Member.withTeam");
+
+    private final String graphName;
+
+    MemberFetchPlan(String graphName) {
+        this.graphName = graphName;
+    }
+
+    public String getGraphName() {
+        return graphName;
+    }
+
+    //summary, withTeam, with_team, WITH_TEAM 모두 허용
+    public static MemberFetchPlan of(String name) {
+        String normalized = name.replace("_", "").replace("-", "").toLowerCase(Locale.ROOT);
+        for (MemberFetchPlan plan : values()) {
+            if (plan.name().replace("_", "").toLowerCase(Locale.ROOT).equals(normalized)) {
+                return plan;
+            }
+        }
+        throw new IllegalArgumentException("unknown fetch plan: " + name);
+    }
+}
@@ -4,7 +4,10 @@ import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 import study.data_jpa.entity.Member;
+import study.data_jpa.event.MemberCommitEventPublisher;
+import study.data_jpa.stats.TeamAgeStatsMaintainer;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,6 +16,8 @@ import java.util.Optional;
 public class MemberJpaRepository {
 
     private final EntityManager em;
+    private final TeamAgeStatsMaintainer teamAgeStatsMaintainer;
+    private final MemberCommitEventPublisher memberCommitEventPublisher;
 
     public Member save(Member member) {
         em.persist(member);
@@ -67,10 +72,16 @@ public class MemberJpaRepository {
     }
 
     public int bulkAgePlus(int age) {
-        return em.createQuery(
-                "update Member m set m.age = m.age + 1 where m.age >= :age")
+        teamAgeStatsMaintainer.applyPending(em);
+        LocalDateTime now = LocalDateTime.now();
+        int updated = em.createQuery(
+                "update Member m set m.age = m.age + 1, m.lastModifiedDate = :now where m.age >= :age")
                 .setParameter("age", age)
+                .setParameter("now", now)
                 .executeUpdate();
+        teamAgeStatsMaintainer.shiftAges(em, age);
+        memberCommitEventPublisher.publishAgeShifted(age, now);
+        return updated;
     }
 
 }
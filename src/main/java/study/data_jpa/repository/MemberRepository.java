@@ -9,10 +9,11 @@ import org.springframework.data.repository.query.Param;
 import study.data_jpa.dto.MemberDto;
 import study.data_jpa.entity.Member;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
-public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom {
+public interface MemberRepository extends MultiGetRepository<Member, Long>, MemberRepositoryCustom {
 
     List<Member> findByUsernameAndAgeGreaterThan(String username, int age);
 
@@ -39,10 +40,6 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
 
     Page<Member> findByAge(int age, Pageable pageable);
 
-    @Modifying
-    @Query("update Member m set m.age = m.age + 1 where m.age >= :age")
-    int bulkAgePlus(@Param("age") int age);
-
     @Query("select m from Member m left join fetch m.team")
     List<Member> findMemberFetchJoin();
 
@@ -79,4 +76,15 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
      + "from member m left join team t on m.team_id = t.team_id",
     countQuery = "select count(*) from member", nativeQuery = true)
     Page<MemberProjection> findByNativeProjection(Pageable pageable);
+
+    //조건부 GET 검증용 - 엔티티를 올리지 않고 수정 시각만 조회
+    @Query("select m.lastModifiedDate from Member m where m.id = :id")
+    Optional<LocalDateTime> findLastModifiedDateById(@Param("id") Long id);
+
+    //목록은 팀 이름도 내려주므로 팀 변경(이름 변경, 삭제)도 검증자에 포함한다
+    @Query("select count(m) as memberCount, max(m.lastModifiedDate) as lastModified,"
+            + " (select count(t) from Team t) as teamCount,"
+            + " (select max(t.lastModifiedDate) from Team t) as teamLastModified"
+            + " from Member m")
+    MemberVersion findVersion();
 }
@@ -1,11 +1,46 @@
 package study.data_jpa.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import study.data_jpa.dto.MemberChangeFeed;
+import study.data_jpa.dto.MemberDto;
+import study.data_jpa.dto.MemberRow;
+import study.data_jpa.dto.MemberSearchCondition;
 import study.data_jpa.entity.Member;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface MemberRepositoryCustom {
 
     List<Member> findMemberCustom();
 
+    List<MemberDto> search(MemberSearchCondition condition, int limit);
+
+    int bulkAgePlus(int age);
+
+    //(lastModifiedDate, id) 워터마크 이후 변경/삭제된 회원을 keyset 순서로 - 최근 safety-lag 이내 변경은 다음 요청에서
+    MemberChangeFeed findChanges(LocalDateTime since, Long lastId, int size);
+
+    //until 이전 변경만
+    MemberChangeFeed findChanges(LocalDateTime since, Long lastId, int size, LocalDateTime until);
+
+    //기본 조회는 hot 테이블(member)만 - 아카이브까지 보려면 아래 메서드를 명시적으로 사용
+    List<MemberDto> findByUsernameIncludingArchived(String username);
+
+    Optional<MemberDto> findByIdIncludingArchived(Long id);
+
+    //fetch plan 을 고르는 조회 - 필요한 경우에만 team 을 조인한다
+    Optional<Member> findById(Long id, MemberFetchPlan plan);
+
+    Slice<Member> findSlice(Pageable pageable, MemberFetchPlan plan);
+
+    //결과 행을 읽는 대로 흘려보내는 목록 - 페이지 크기 + 1 행까지 (다음 페이지 여부 확인용). 트랜잭션 안에서 소비하고 닫아야 한다
+    Stream<MemberRow> streamRows(Pageable pageable, MemberFetchPlan plan);
+
+    //write-behind 버퍼에 쌓인 변경까지 반영한 회원. 변경이 있으면 준영속 상태로 돌려준다
+    Optional<Member> findByIdWithPending(Long id);
+
 }
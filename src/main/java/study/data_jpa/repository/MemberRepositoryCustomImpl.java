@@ -1,19 +1,331 @@
 package study.data_jpa.repository;
 
+import jakarta.persistence.EntityGraph;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.transaction.annotation.Transactional;
+import study.data_jpa.dto.MemberChangeFeed;
+import study.data_jpa.dto.MemberDto;
+import study.data_jpa.dto.MemberRow;
+import study.data_jpa.dto.MemberSearchCondition;
 import study.data_jpa.entity.Member;
+import study.data_jpa.entity.MemberTombstone;
+import study.data_jpa.event.MemberCommitEventPublisher;
+import study.data_jpa.stats.TeamAgeStatsMaintainer;
+import study.data_jpa.writebehind.MemberWriteBehindBuffer;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
 public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
 
+    private static final int MAX_SEARCH_TEMPLATES = 64;
+
+    private static final int USERNAME_PREFIX = 1;
+    private static final int AGE_GOE = 1 << 1;
+    private static final int AGE_LOE = 1 << 2;
+    private static final int TEAM_NAME = 1 << 3;
+    private static final int CURSOR = 1 << 4;
+    private static final int SORT_USERNAME = 1 << 5;
+
+    private static final String FETCH_GRAPH = "jakarta.persistence.fetchgraph";
+
     private final EntityManager em;
+    private final TeamAgeStatsMaintainer teamAgeStatsMaintainer;
+    private final MemberCommitEventPublisher memberCommitEventPublisher;
+    private final ObjectProvider<MemberWriteBehindBuffer> writeBehindBuffer;
+
+    //검색 조건 조합(shape) -> JPQL. 같은 문자열을 재사용해야 Hibernate 쿼리 플랜 캐시에 적중한다
+    private final Map<Integer, String> searchTemplates = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+                    return size() > MAX_SEARCH_TEMPLATES;
+                }
+            });
+
+    //변경 피드 워터마크 지연 - 가장 긴 트랜잭션보다 길어야 늦게 커밋된 변경을 건너뛰지 않는다
+    @Value("${data-jpa.changes.safety-lag:30s}")
+    private Duration safetyLag;
+
+    @Value("${data-jpa.tombstone.retention:30d}")
+    private Duration tombstoneRetention;
+
+    //plan -> 엔티티 그래프. 그래프는 세션과 무관해서 한 번 만들어 재사용한다
+    private final Map<MemberFetchPlan, EntityGraph<?>> fetchGraphs = new ConcurrentHashMap<>();
 
     @Override
     public List<Member> findMemberCustom() {
         return em.createQuery("select m from Member m", Member.class).getResultList();
     }
 
+    @Override
+    public List<MemberDto> search(MemberSearchCondition condition, int limit) {
+        int shape = shapeOf(condition);
+        String jpql = searchTemplates.computeIfAbsent(shape, MemberRepositoryCustomImpl::searchTemplate);
+
+        TypedQuery<MemberDto> query = em.createQuery(jpql, MemberDto.class);
+        if ((shape & USERNAME_PREFIX) != 0) {
+            query.setParameter("usernamePrefix", escapeLike(condition.getUsernamePrefix()) + "%");
+        }
+        if ((shape & AGE_GOE) != 0) {
+            query.setParameter("ageGoe", condition.getAgeGoe());
+        }
+        if ((shape & AGE_LOE) != 0) {
+            query.setParameter("ageLoe", condition.getAgeLoe());
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            query.setParameter("teamName", condition.getTeamName());
+        }
+        if ((shape & CURSOR) != 0) {
+            query.setParameter("lastId", condition.getLastId());
+            if ((shape & SORT_USERNAME) != 0) {
+                query.setParameter("lastUsername", condition.getLastUsername());
+            }
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    @Transactional
+    public int bulkAgePlus(int age) {
+        teamAgeStatsMaintainer.applyPending(em);
+        LocalDateTime now = LocalDateTime.now();
+        int updated = em.createQuery(
+                        "update Member m set m.age = m.age + 1, m.lastModifiedDate = :now where m.age >= :age")
+                .setParameter("age", age)
+                .setParameter("now", now)
+                .executeUpdate();
+        teamAgeStatsMaintainer.shiftAges(em, age);
+        memberCommitEventPublisher.publishAgeShifted(age, now);
+        return updated;
+    }
+
+    @Override
+    public MemberChangeFeed findChanges(LocalDateTime since, Long lastId, int size) {
+        return findChanges(since, lastId, size, LocalDateTime.now().minus(safetyLag));
+    }
+
+    @Override
+    public MemberChangeFeed findChanges(LocalDateTime since, Long lastId, int size, LocalDateTime until) {
+        //a >= :since and (a > :since or id > :lastId) - 인덱스 범위 스캔이 가능한 keyset 조건
+        //수정 시각은 커밋 전에 정해지므로 until 이후 변경은 아직 커밋되지 않은 더 이른 변경이 있을 수 있어 다음 요청으로 미룬다
+        List<Object[]> changed = em.createQuery(
+                        "select m.id, m.username, t.name, m.lastModifiedDate from Member m left join m.team t"
+                                + " where m.lastModifiedDate >= :since and (m.lastModifiedDate > :since or m.id > :lastId)"
+                                + " and m.lastModifiedDate < :until"
+                                + " order by m.lastModifiedDate, m.id", Object[].class)
+                .setParameter("since", since)
+                .setParameter("lastId", lastId)
+                .setParameter("until", until)
+                .setMaxResults(size)
+                .getResultList();
+        List<MemberTombstone> deleted = em.createQuery(
+                        "select t from MemberTombstone t"
+                                + " where t.deletedDate >= :since and (t.deletedDate > :since or t.memberId > :lastId)"
+                                + " and t.deletedDate < :until"
+                                + " order by t.deletedDate, t.memberId", MemberTombstone.class)
+                .setParameter("since", since)
+                .setParameter("lastId", lastId)
+                .setParameter("until", until)
+                .setMaxResults(size)
+                .getResultList();
+
+        //두 keyset 결과를 (시각, id) 순으로 병합해서 size 만큼
+        List<MemberDto> changedMembers = new ArrayList<>();
+        List<Long> deletedIds = new ArrayList<>();
+        LocalDateTime nextSince = since;
+        Long nextLastId = lastId;
+        int i = 0;
+        int j = 0;
+        while (i + j < size && (i < changed.size() || j < deleted.size())) {
+            boolean takeChanged = j >= deleted.size()
+                    || (i < changed.size() && compareWatermark(
+                    (LocalDateTime) changed.get(i)[3], (Long) changed.get(i)[0],
+                    deleted.get(j).getDeletedDate(), deleted.get(j).getMemberId()) <= 0);
+            if (takeChanged) {
+                Object[] row = changed.get(i++);
+                changedMembers.add(new MemberDto((Long) row[0], (String) row[1], (String) row[2]));
+                nextSince = (LocalDateTime) row[3];
+                nextLastId = (Long) row[0];
+            } else {
+                MemberTombstone tombstone = deleted.get(j++);
+                deletedIds.add(tombstone.getMemberId());
+                nextSince = tombstone.getDeletedDate();
+                nextLastId = tombstone.getMemberId();
+            }
+        }
+        boolean hasMore = i < changed.size() || j < deleted.size() || changed.size() == size || deleted.size() == size;
+        //보존 기간이 지난 tombstone 은 지워지므로 그보다 오래된 워터마크로는 삭제를 다 받을 수 없다
+        boolean resyncRequired = since.isBefore(LocalDateTime.now().minus(tombstoneRetention));
+        return new MemberChangeFeed(changedMembers, deletedIds, nextSince, nextLastId, hasMore, resyncRequired);
+    }
+
+    @Override
+    public List<MemberDto> findByUsernameIncludingArchived(String username) {
+        List<MemberDto> result = new ArrayList<>(em.createQuery(
+                        "select new study.data_jpa.dto.MemberDto(m.id, m.username, t.name)"
+                                + " from Member m left join m.team t where m.username = :username", MemberDto.class)
+                .setParameter("username", username)
+                .getResultList());
+        result.addAll(em.createQuery(
+                        "select new study.data_jpa.dto.MemberDto(a.id, a.username, t.name)"
+                                + " from ArchivedMember a left join Team t on t.id = a.teamId where a.username = :username", MemberDto.class)
+                .setParameter("username", username)
+                .getResultList());
+        return result;
+    }
+
+    @Override
+    public Optional<MemberDto> findByIdIncludingArchived(Long id) {
+        List<MemberDto> hot = em.createQuery(
+                        "select new study.data_jpa.dto.MemberDto(m.id, m.username, t.name)"
+                                + " from Member m left join m.team t where m.id = :id", MemberDto.class)
+                .setParameter("id", id)
+                .getResultList();
+        if (!hot.isEmpty()) {
+            return Optional.of(hot.get(0));
+        }
+        return em.createQuery(
+                        "select new study.data_jpa.dto.MemberDto(a.id, a.username, t.name)"
+                                + " from ArchivedMember a left join Team t on t.id = a.teamId where a.id = :id", MemberDto.class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst();
+    }
+
+    @Override
+    public Optional<Member> findById(Long id, MemberFetchPlan plan) {
+        EntityGraph<?> graph = fetchGraph(plan);
+        if (graph == null) {
+            return Optional.ofNullable(em.find(Member.class, id));
+        }
+        return Optional.ofNullable(em.find(Member.class, id, Map.of(FETCH_GRAPH, graph)));
+    }
+
+    @Override
+    public Slice<Member> findSlice(Pageable pageable, MemberFetchPlan plan) {
+        //정렬이 같으면 JPQL 문자열도 같아서 쿼리 플랜 캐시를 탄다
+        String jpql = QueryUtils.applySorting("select m from Member m", pageable.getSort(), "m");
+        TypedQuery<Member> query = em.createQuery(jpql, Member.class);
+        EntityGraph<?> graph = fetchGraph(plan);
+        if (graph != null) {
+            query.setHint(FETCH_GRAPH, graph);
+        }
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(query.getResultList(), pageable, false);
+        }
+        List<Member> content = query
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    @Override
+    public Stream<MemberRow> streamRows(Pageable pageable, MemberFetchPlan plan) {
+        //스칼라만 읽으므로 영속성 컨텍스트에 엔티티가 쌓이지 않는다. summary 는 FK 컬럼만 읽고 team 은 조인하지 않는다
+        String select = plan == MemberFetchPlan.WITH_TEAM
+                ? "select m.id, m.username, m.age, t.id, t.name from Member m left join m.team t"
+                : "select m.id, m.username, m.age, m.team.id from Member m";
+        TypedQuery<Object[]> query = em.createQuery(QueryUtils.applySorting(select, pageable.getSort(), "m"), Object[].class);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(pageable.getPageSize() + 1)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, Math.min(pageable.getPageSize() + 1, 1000));
+        }
+        return query.getResultStream()
+                .map(row -> new MemberRow((Long) row[0], (String) row[1], (Integer) row[2], (Long) row[3],
+                        row.length > 4 ? (String) row[4] : null));
+    }
+
+    private EntityGraph<?> fetchGraph(MemberFetchPlan plan) {
+        if (plan.getGraphName() == null) {
+            return null;
+        }
+        return fetchGraphs.computeIfAbsent(plan, p -> em.getEntityGraph(p.getGraphName()));
+    }
+
+    @Override
+    public Optional<Member> findByIdWithPending(Long id) {
+        Optional<Member> member = Optional.ofNullable(em.find(Member.class, id));
+        MemberWriteBehindBuffer buffer = writeBehindBuffer.getIfAvailable();
+        if (buffer == null) {
+            return member;
+        }
+        return member.map(m -> buffer.pending(id)
+                .map(update -> {
+                    //버퍼가 쓸 변경이 이 영속성 컨텍스트에서 다시 flush 되지 않도록 분리
+                    em.detach(m);
+                    update.applyTo(m);
+                    return m;
+                })
+                .orElse(m));
+    }
+
+    private static int compareWatermark(LocalDateTime date1, Long id1, LocalDateTime date2, Long id2) {
+        int result = date1.compareTo(date2);
+        return result != 0 ? result : id1.compareTo(id2);
+    }
+
+    private static int shapeOf(MemberSearchCondition condition) {
+        int shape = 0;
+        if (hasText(condition.getUsernamePrefix())) shape |= USERNAME_PREFIX;
+        if (condition.getAgeGoe() != null) shape |= AGE_GOE;
+        if (condition.getAgeLoe() != null) shape |= AGE_LOE;
+        if (hasText(condition.getTeamName())) shape |= TEAM_NAME;
+        if (condition.sortByUsername()) shape |= SORT_USERNAME;
+        if (condition.getLastId() != null && (!condition.sortByUsername() || condition.getLastUsername() != null)) {
+            shape |= CURSOR;
+        }
+        return shape;
+    }
+
+    private static String searchTemplate(int shape) {
+        List<String> where = new ArrayList<>();
+        if ((shape & USERNAME_PREFIX) != 0) where.add("m.username like :usernamePrefix escape '\\'");
+        if ((shape & AGE_GOE) != 0) where.add("m.age >= :ageGoe");
+        if ((shape & AGE_LOE) != 0) where.add("m.age <= :ageLoe");
+        if ((shape & TEAM_NAME) != 0) where.add("t.name = :teamName");
+        if ((shape & CURSOR) != 0) {
+            where.add((shape & SORT_USERNAME) != 0
+                    ? "(m.username > :lastUsername or (m.username = :lastUsername and m.id > :lastId))"
+                    : "m.id > :lastId");
+        }
+
+        StringBuilder jpql = new StringBuilder(
+                "select new study.data_jpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t");
+        if (!where.isEmpty()) {
+            jpql.append(" where ").append(String.join(" and ", where));
+        }
+        jpql.append((shape & SORT_USERNAME) != 0 ? " order by m.username, m.id" : " order by m.id");
+        return jpql.toString();
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
 }
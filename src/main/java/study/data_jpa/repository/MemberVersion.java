@@ -0,0 +1,12 @@
+package study.data_jpa.repository;
+
+import java.time.LocalDateTime;
+
+public interface MemberVersion {
+
+    Long getMemberCount();
+    LocalDateTime getLastModified();
+    Long getTeamCount();
+    LocalDateTime getTeamLastModified();
+
+}
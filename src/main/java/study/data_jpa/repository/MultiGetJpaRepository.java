@@ -0,0 +1,39 @@
+package study.data_jpa.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+public class MultiGetJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> implements MultiGetRepository<T, ID> {
+
+    static final int BATCH_SIZE = 500;
+
+    private final EntityManager em;
+
+    public MultiGetJpaRepository(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager) {
+        super(entityInformation, entityManager);
+        this.em = entityManager;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Optional<T>> multiGet(List<ID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<T> loaded = em.unwrap(Session.class)
+                .byMultipleIds(getDomainClass())
+                .enableSessionCheck(true)
+                .enableOrderedReturn(true)
+                .withBatchSize(BATCH_SIZE)
+                .multiLoad(ids);
+        return loaded.stream()
+                .map(Optional::ofNullable)
+                .toList();
+    }
+}
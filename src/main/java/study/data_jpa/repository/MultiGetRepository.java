@@ -0,0 +1,18 @@
+package study.data_jpa.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+
+import java.util.List;
+import java.util.Optional;
+
+@NoRepositoryBean
+public interface MultiGetRepository<T, ID> extends JpaRepository<T, ID> {
+
+    /**
+     * ids 순서 그대로 돌려준다. 없는 id 자리는 Optional.empty().
+     * 영속성 컨텍스트 / 2차 캐시에 있는 엔티티는 SQL 없이 채우고 나머지만 IN 쿼리로 나눠 조회한다.
+     */
+    List<Optional<T>> multiGet(List<ID> ids);
+
+}
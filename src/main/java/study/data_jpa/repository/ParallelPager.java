@@ -0,0 +1,104 @@
+package study.data_jpa.repository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.data_jpa.shard.ConditionalOnShardingDisabled;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * content 쿼리와 count 쿼리를 동시에 실행하는 페이징.
+ * count 는 별도 커넥션 / 읽기 전용 트랜잭션에서 실행되고, 제한 시간 안에 끝나지 않으면 total 없이 Slice 로 응답한다.
+ * content 가 페이지 크기보다 적게 오면 total 을 바로 알 수 있으므로 count 는 취소하고 기다리지 않는다.
+ * total 을 알면 Page(PageImpl) 를 돌려준다.
+ */
+@Slf4j
+@Component
+@ConditionalOnShardingDisabled
+public class ParallelPager {
+
+    private final TransactionTemplate countTx;
+    private final ExecutorService executor;
+    private final long countTimeoutMillis;
+
+    public ParallelPager(PlatformTransactionManager transactionManager,
+                         @Value("${data-jpa.paging.count-timeout:500}") long countTimeoutMillis,
+                         @Value("${data-jpa.paging.count-threads:4}") int countThreads) {
+        this.countTx = new TransactionTemplate(transactionManager);
+        this.countTx.setReadOnly(true);
+        this.countTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        //Future.cancel 은 실행 중인 statement 를 멈추지 못한다
+        //트랜잭션 timeout 이 그 안의 쿼리에 JDBC query timeout 으로 걸리므로 늦은 count 는 DB 에서 끊긴다 (초 단위)
+        this.countTx.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(countTimeoutMillis + 999)));
+        this.countTimeoutMillis = countTimeoutMillis;
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(countThreads, r -> {
+            Thread thread = new Thread(r, "count-query-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param contentQuery Slice 조회 (size + 1 건으로 다음 페이지 여부를 판단하는 쿼리)
+     * @param countQuery   전체 건수 조회
+     */
+    public <T> Slice<T> findPage(Pageable pageable, Function<Pageable, Slice<T>> contentQuery, Supplier<Long> countQuery) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(contentQuery.apply(pageable).getContent());
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(countTimeoutMillis);
+        Future<Long> count = executor.submit(() -> countTx.execute(status -> countQuery.get()));
+
+        Slice<T> content;
+        try {
+            content = contentQuery.apply(pageable);
+        } catch (RuntimeException e) {
+            count.cancel(true);
+            throw e;
+        }
+
+        //마지막 페이지면 total 은 content 만으로 알 수 있다
+        if (!content.hasNext() && (content.hasContent() || pageable.getOffset() == 0)) {
+            count.cancel(true);
+            return new PageImpl<>(content.getContent(), pageable, pageable.getOffset() + content.getNumberOfElements());
+        }
+
+        try {
+            long total = count.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return new PageImpl<>(content.getContent(), pageable, total);
+        } catch (TimeoutException e) {
+            count.cancel(true);
+            log.debug("count query exceeded {}ms, responding without total", countTimeoutMillis);
+            return content;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            count.cancel(true);
+            return content;
+        } catch (ExecutionException e) {
+            log.warn("count query failed, responding without total", e.getCause());
+            return content;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,159 @@
+package study.data_jpa.repository;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceUnitUtil;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.data_jpa.shard.ConditionalOnShardingDisabled;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * id 범위를 N개로 나누어 파티션마다 별도 커넥션 / 읽기 전용 트랜잭션에서 스캔한다.
+ * 콜백은 여러 스레드에서 동시에 호출되므로 thread-safe 해야 한다.
+ */
+@Component
+@ConditionalOnShardingDisabled
+public class PartitionedScanner {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private final EntityManager em;
+    private final TransactionTemplate readOnlyTx;
+    private final ForkJoinPool pool;
+
+    public PartitionedScanner(EntityManager em,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${data-jpa.scan.parallelism:4}") int parallelism) {
+        this.em = em;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.readOnlyTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    public <T> long forEach(Class<T> type, int partitions, Consumer<? super T> action) {
+        return map(type, partitions, rows -> {
+            long count = 0;
+            for (Iterator<T> it = rows.iterator(); it.hasNext(); count++) {
+                action.accept(it.next());
+            }
+            return count;
+        }).mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * 파티션마다 partitionFunction 을 실행하고 결과를 파티션 순서대로 돌려준다.
+     * 전달되는 Stream 은 해당 파티션의 트랜잭션 안에서만 유효하다.
+     */
+    public <T, R> Stream<R> map(Class<T> type, int partitions, Function<Stream<T>, R> partitionFunction) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("partitions must be positive: " + partitions);
+        }
+        ScanTarget target = scanTarget(type);
+        Object[] range = readOnlyTx.execute(status -> em.createQuery(
+                        "select min(e." + target.idName + "), max(e." + target.idName + ") from " + target.entityName + " e",
+                        Object[].class)
+                .getSingleResult());
+        if (range == null || range[0] == null) {
+            return Stream.empty();
+        }
+
+        long min = ((Number) range[0]).longValue();
+        long max = ((Number) range[1]).longValue();
+        long step = Math.max(1, (max - min) / partitions + 1);
+
+        List<ForkJoinTask<R>> tasks = new ArrayList<>();
+        for (long lo = min; lo <= max; lo += step) {
+            long from = lo;
+            long to = Math.min(max, lo + step - 1);
+            tasks.add(pool.submit(() -> readOnlyTx.execute(status ->
+                    partitionFunction.apply(partitionStream(type, target, from, to)))));
+            if (to == max) {
+                break;
+            }
+        }
+        return tasks.stream().map(ForkJoinTask::join);
+    }
+
+    private <T> Stream<T> partitionStream(Class<T> type, ScanTarget target, long from, long to) {
+        String jpql = "select e from " + target.entityName + " e"
+                + " where e." + target.idName + " > :last and e." + target.idName + " <= :to"
+                + " order by e." + target.idName;
+        PersistenceUnitUtil util = em.getEntityManagerFactory().getPersistenceUnitUtil();
+
+        Iterator<T> rows = new Iterator<>() {
+            long last = from - 1;
+            Iterator<T> chunk = fetch();
+            boolean exhausted;
+
+            private Iterator<T> fetch() {
+                //이전 청크는 영속성 컨텍스트에서 내려서 메모리를 파티션 크기와 무관하게 유지
+                em.clear();
+                List<T> result = em.createQuery(jpql, type)
+                        .setParameter("last", last)
+                        .setParameter("to", to)
+                        .setHint("org.hibernate.readOnly", true)
+                        .setMaxResults(CHUNK_SIZE)
+                        .getResultList();
+                exhausted = result.size() < CHUNK_SIZE;
+                return result.iterator();
+            }
+
+            @Override
+            public boolean hasNext() {
+                if (!chunk.hasNext() && !exhausted) {
+                    chunk = fetch();
+                }
+                return chunk.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                T row = chunk.next();
+                last = ((Number) util.getIdentifier(row)).longValue();
+                return row;
+            }
+        };
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    private ScanTarget scanTarget(Class<?> type) {
+        EntityType<?> entityType = em.getMetamodel().entity(type);
+        Class<?> idType = entityType.getIdType().getJavaType();
+        if (idType != Long.class && idType != long.class) {
+            throw new IllegalArgumentException("partitioned scan requires a Long id: " + type.getName());
+        }
+        SingularAttribute<?, ?> id = entityType.getId(idType);
+        return new ScanTarget(entityType.getName(), id.getName());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private record ScanTarget(String entityName, String idName) {
+    }
+}
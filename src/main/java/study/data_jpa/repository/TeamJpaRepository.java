@@ -4,9 +4,14 @@ import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 import study.data_jpa.entity.Team;
+import study.data_jpa.entity.TeamAgeStats;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Repository
 @RequiredArgsConstructor
@@ -39,4 +44,51 @@ public class TeamJpaRepository {
         return em.createQuery("select count(*) from Team", Long.class).getSingleResult();
     }
 
+    /**
+     * 팀 페이지를 회원과 함께 조회한다. 컬렉션 페치 조인에 limit 을 걸면 전체를 읽어 메모리에서 페이징하므로
+     * 팀 id 페이지를 먼저 구하고, 그 팀들만 회원과 함께 한 번 더 조회한다. (쿼리 2번, 메모리는 페이지 크기만큼)
+     */
+    public List<Team> findPageWithMembers(int offset, int limit) {
+        List<Long> ids = em.createQuery("select t.id from Team t order by t.id", Long.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+        return findWithMembers(ids);
+    }
+
+    //keyset 페이징 - 깊은 페이지에서도 offset 만큼 건너뛰지 않는다
+    public List<Team> findPageWithMembersAfter(Long lastId, int limit) {
+        List<Long> ids = em.createQuery("select t.id from Team t where t.id > :lastId order by t.id", Long.class)
+                .setParameter("lastId", lastId)
+                .setMaxResults(limit)
+                .getResultList();
+        return findWithMembers(ids);
+    }
+
+    private List<Team> findWithMembers(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Team> teams = em.createQuery(
+                        "select t from Team t left join fetch t.members m where t.id in :ids order by t.id, m.id", Team.class)
+                .setParameter("ids", ids)
+                .getResultStream()
+                .collect(Collectors.toMap(Team::getId, Function.identity(), (a, b) -> a));
+        //id 페이지 순서대로 (그 사이 삭제된 팀은 제외)
+        return ids.stream()
+                .map(teams::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    //팀별 회원 수 / 평균 나이 / 나이 분포 - 요약 테이블에서 O(팀 수)로 조회
+    public Optional<TeamAgeStats> findAgeStats(Long teamId) {
+        return Optional.ofNullable(em.find(TeamAgeStats.class, teamId));
+    }
+
+    public List<TeamAgeStats> findAllAgeStats() {
+        return em.createQuery("select s from TeamAgeStats s left join fetch s.histogram", TeamAgeStats.class)
+                .getResultList();
+    }
+
 }
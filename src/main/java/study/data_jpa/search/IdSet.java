@@ -0,0 +1,52 @@
+package study.data_jpa.search;
+
+import java.util.Arrays;
+
+/**
+ * 정렬된 long 배열 기반 id 집합. 박싱 없이 id 하나당 8byte.
+ */
+final class IdSet {
+
+    private long[] ids = new long[2];
+    private int size;
+
+    synchronized boolean add(long id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index >= 0) {
+            return false;
+        }
+        int insertAt = -index - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+        }
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        size++;
+        return true;
+    }
+
+    synchronized boolean remove(long id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        size--;
+        if (size < ids.length >> 2 && ids.length > 8) {
+            ids = Arrays.copyOf(ids, size << 1);
+        }
+        return true;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    synchronized long[] toArray(int max) {
+        return Arrays.copyOf(ids, Math.min(size, max));
+    }
+}
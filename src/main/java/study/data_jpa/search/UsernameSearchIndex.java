@@ -0,0 +1,271 @@
+package study.data_jpa.search;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.data_jpa.entity.Member;
+import study.data_jpa.event.MemberChangeListener;
+import study.data_jpa.readmodel.ConcurrentLongMap;
+import study.data_jpa.shard.ConditionalOnShardingDisabled;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * username 자동완성용 인메모리 인덱스. 접두사 검색은 정렬된 term 맵, 부분 문자열 검색은 trigram 역색인을 쓴다.
+ * 시작 시 id 순서로 청크 단위 적재하며, 적재 중에도 이미 들어온 범위는 검색된다.
+ */
+@Slf4j
+@Component
+@ConditionalOnShardingDisabled
+public class UsernameSearchIndex implements MemberChangeListener {
+
+    private static final int LOAD_CHUNK = 10_000;
+    //부분 문자열 검색 시 검증할 후보 수 상한 - 응답 시간을 일정하게 유지
+    private static final int MAX_CANDIDATES = 20_000;
+    private static final int LOCK_STRIPES = 64;
+
+    private final EntityManager em;
+    private final TransactionTemplate readOnlyTx;
+
+    //id -> term. 박싱 없이 long 키를 그대로 보관
+    private final ConcurrentLongMap<String> termById = new ConcurrentLongMap<>();
+    private final NavigableMap<String, IdSet> idsByTerm = new ConcurrentSkipListMap<>();
+    private final Map<String, IdSet> idsByTrigram = new ConcurrentHashMap<>();
+    //id 별 잠금과 term / trigram 별 잠금. 항상 id 잠금 -> 키 잠금 순서로만 잡는다
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final Object[] keyLocks = new Object[LOCK_STRIPES];
+
+    //적재 도중 삭제된 id 가 뒤늦게 적재되지 않도록 기록
+    private final Set<Long> deletedWhileLoading = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    public UsernameSearchIndex(EntityManager em, PlatformTransactionManager transactionManager) {
+        this.em = em;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+            keyLocks[i] = new Object();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Thread loader = new Thread(this::load, "username-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    void load() {
+        long last = Long.MIN_VALUE;
+        long loaded = 0;
+        while (true) {
+            long from = last;
+            List<Object[]> rows = readOnlyTx.execute(status -> em.createQuery(
+                            "select m.id, m.username from Member m where m.id > :last order by m.id", Object[].class)
+                    .setParameter("last", from)
+                    .setMaxResults(LOAD_CHUNK)
+                    .getResultList());
+            for (Object[] row : rows) {
+                Long id = (Long) row[0];
+                put(id, (String) row[1], true);
+                last = id;
+            }
+            loaded += rows.size();
+            if (rows.size() < LOAD_CHUNK) {
+                break;
+            }
+        }
+        ready = true;
+        deletedWhileLoading.clear();
+        log.info("username index loaded: {} members", loaded);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void memberSaved(Member member) {
+        put(member.getId(), member.getUsername());
+    }
+
+    @Override
+    public void memberDeleted(Long memberId) {
+        //적재 스레드의 확인 -> 추가와 겹치지 않도록 같은 잠금 안에서 기록하고 지운다
+        synchronized (lockFor(memberId)) {
+            if (!ready) {
+                deletedWhileLoading.add(memberId);
+            }
+            remove(memberId);
+        }
+    }
+
+    public void put(long id, String username) {
+        put(id, username, false);
+    }
+
+    //onlyIfAbsent: 적재 중 읽은 행 - 이미 이벤트로 들어왔거나 삭제된 회원이면 건너뛴다
+    private void put(long id, String username, boolean onlyIfAbsent) {
+        synchronized (lockFor(id)) {
+            String term = username == null ? null : normalize(username).intern();
+            String previous = termById.get(id);
+            if (onlyIfAbsent && (previous != null || deletedWhileLoading.contains(id))) {
+                return;
+            }
+            if (previous != null && previous.equals(term)) {
+                return;
+            }
+            if (previous != null) {
+                unindex(id, previous);
+            }
+            if (term == null) {
+                termById.remove(id);
+                return;
+            }
+            termById.put(id, term);
+            addTo(idsByTerm, term, id);
+            for (String trigram : trigrams(term)) {
+                addTo(idsByTrigram, trigram, id);
+            }
+        }
+    }
+
+    public void remove(long id) {
+        synchronized (lockFor(id)) {
+            String previous = termById.remove(id);
+            if (previous != null) {
+                unindex(id, previous);
+            }
+        }
+    }
+
+    private void unindex(long id, String term) {
+        removeFrom(idsByTerm, term, id);
+        for (String trigram : trigrams(term)) {
+            removeFrom(idsByTrigram, trigram, id);
+        }
+    }
+
+    //id 잠금은 회원마다 달라 같은 키를 여러 회원이 동시에 고칠 수 있다
+    //빈 집합을 맵에서 빼는 것과 다른 회원의 추가가 엇갈리지 않도록 키 잠금 안에서 처리한다
+    //(ConcurrentSkipListMap 의 compute 는 함수를 원자적으로 한 번만 실행한다고 보장하지 않는다)
+    private void addTo(Map<String, IdSet> index, String key, long id) {
+        synchronized (keyLockFor(key)) {
+            index.computeIfAbsent(key, k -> new IdSet()).add(id);
+        }
+    }
+
+    private void removeFrom(Map<String, IdSet> index, String key, long id) {
+        synchronized (keyLockFor(key)) {
+            IdSet ids = index.get(key);
+            if (ids == null) {
+                return;
+            }
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                index.remove(key, ids);
+            }
+        }
+    }
+
+    /**
+     * 일치도 순으로 member id 를 돌려준다. 완전 일치 > 접두사 > 부분 문자열(앞쪽일수록), 같으면 짧은 이름 우선.
+     * 후보를 모두(최대 MAX_CANDIDATES) 모아 순위를 매긴 뒤 limit 만큼 자른다.
+     */
+    public List<Long> search(String query, int limit) {
+        if (query == null || query.isBlank() || limit <= 0) {
+            return List.of();
+        }
+        String q = normalize(query);
+        List<Match> matches = new ArrayList<>();
+        Set<Long> seen = new LinkedHashSet<>();
+
+        //접두사: 사전순이 길이순은 아니므로("abaaa" < "abz") limit 에서 끊지 않고 후보 상한까지 모은다
+        for (Map.Entry<String, IdSet> entry : idsByTerm.subMap(q, true, q + Character.MAX_VALUE, false).entrySet()) {
+            for (long id : entry.getValue().toArray(limit)) {
+                if (seen.add(id)) {
+                    matches.add(new Match(id, entry.getKey(), 0));
+                }
+            }
+            if (seen.size() >= MAX_CANDIDATES) {
+                break;
+            }
+        }
+
+        //부분 문자열: 접두사 일치가 항상 앞서므로 접두사만으로 limit 을 채우면 생략한다
+        //가장 작은 trigram posting 만 후보로 두고 실제 포함 여부를 확인
+        if (q.length() >= 3 && seen.size() < limit) {
+            IdSet smallest = null;
+            for (String trigram : trigrams(q)) {
+                IdSet ids = idsByTrigram.get(trigram);
+                if (ids == null) {
+                    smallest = null;
+                    break;
+                }
+                if (smallest == null || ids.size() < smallest.size()) {
+                    smallest = ids;
+                }
+            }
+            if (smallest != null) {
+                for (long id : smallest.toArray(MAX_CANDIDATES)) {
+                    String term = termById.get(id);
+                    int position = term == null ? -1 : term.indexOf(q);
+                    if (position > 0 && seen.add(id)) {
+                        matches.add(new Match(id, term, position));
+                    }
+                }
+            }
+        }
+
+        matches.sort(Comparator.comparingInt((Match m) -> m.term.equals(q) ? 0 : 1)
+                .thenComparingInt(m -> m.position)
+                .thenComparingInt(m -> m.term.length())
+                .thenComparing(m -> m.term)
+                .thenComparingLong(m -> m.id));
+        return matches.stream()
+                .limit(limit)
+                .map(Match::id)
+                .toList();
+    }
+
+    public int size() {
+        return termById.size();
+    }
+
+    private Object lockFor(long id) {
+        return locks[(int) (id ^ (id >>> 32)) & (LOCK_STRIPES - 1)];
+    }
+
+    private Object keyLockFor(String key) {
+        return keyLocks[key.hashCode() & (LOCK_STRIPES - 1)];
+    }
+
+    private static String normalize(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> trigrams(String term) {
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= term.length(); i++) {
+            trigrams.add(term.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private record Match(long id, String term, int position) {
+    }
+}
@@ -0,0 +1,21 @@
+package study.data_jpa.shard;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 샤딩을 켜면 만들지 않는 빈. MemberRepository / EntityManager 로 기본 데이터소스(shard 0)만 읽으므로
+ * 샤딩 중에 떠 있으면 한 shard 의 데이터만 조용히 보게 된다. 샤딩 중에는 {@link ShardedMemberRepository} 를 쓴다.
+ * 다른 @ConditionalOnProperty 와 함께 붙이면 둘 다 만족해야 한다.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@ConditionalOnProperty(name = "data-jpa.sharding.enabled", havingValue = "false", matchIfMissing = true)
+public @interface ConditionalOnShardingDisabled {
+}
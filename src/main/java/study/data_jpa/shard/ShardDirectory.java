@@ -0,0 +1,83 @@
+package study.data_jpa.shard;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import study.data_jpa.entity.Member;
+import study.data_jpa.event.MemberChangeListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * username -> 그 이름의 회원이 있는 shard 들(bit mask).
+ * 이름 변경 / 삭제 시 이전 항목은 지우지 않으므로 실제보다 넓을 수 있다 (조회할 shard 가 늘 뿐 빠뜨리지는 않는다).
+ * 이 노드가 저장한 회원만 바로 반영된다. 다른 노드가 저장한 회원은 주기적인 rebuild 로 반영하고,
+ * 그 전에 모르는 이름은 조회하는 쪽이 모든 shard 에 묻는다.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "data-jpa.sharding.enabled", havingValue = "true")
+public class ShardDirectory implements MemberChangeListener {
+
+    private static final int LOAD_CHUNK_SIZE = 10_000;
+
+    private final EntityManager em;
+    private final ShardRouter shardRouter;
+
+    private final Map<String, Integer> shardMasks = new ConcurrentHashMap<>();
+
+    public void record(String username, int shard) {
+        if (username != null) {
+            shardMasks.merge(username, 1 << shard, (a, b) -> a | b);
+        }
+    }
+
+    public List<Integer> shardsOf(String username) {
+        int mask = shardMasks.getOrDefault(username, 0);
+        List<Integer> shards = new ArrayList<>();
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            if ((mask & (1 << shard)) != 0) {
+                shards.add(shard);
+            }
+        }
+        return shards;
+    }
+
+    @Override
+    public void memberSaved(Member member) {
+        record(member.getUsername(), ShardIds.shardOf(member.getId()));
+    }
+
+    @Override
+    public void memberDeleted(Long memberId) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${data-jpa.sharding.directory-refresh:PT5M}",
+            fixedDelayString = "${data-jpa.sharding.directory-refresh:PT5M}")
+    public void rebuild() {
+        shardRouter.readAll(shard -> {
+            String last = "";
+            while (true) {
+                List<String> usernames = em.createQuery(
+                                "select distinct m.username from Member m where m.username > :last order by m.username",
+                                String.class)
+                        .setParameter("last", last)
+                        .setMaxResults(LOAD_CHUNK_SIZE)
+                        .getResultList();
+                usernames.forEach(username -> record(username, shard));
+                if (usernames.size() < LOAD_CHUNK_SIZE) {
+                    return usernames.size();
+                }
+                last = usernames.get(usernames.size() - 1);
+            }
+        });
+    }
+}
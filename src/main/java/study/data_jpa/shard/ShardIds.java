@@ -0,0 +1,52 @@
+package study.data_jpa.shard;
+
+import study.data_jpa.entity.TimeOrderedIdGenerator;
+
+/**
+ * 시간순 id 의 node 영역 하위 4bit 에 shard 번호를 넣는다. [41bit 밀리초 | 6bit node | 4bit shard | 12bit sequence]
+ * id 만 보고 shard 를 알 수 있으므로 조회를 바로 라우팅할 수 있다.
+ * shard 를 지정하지 않은 저장은 공유 생성기(shard 0)를 쓰고 기본 shard 0 으로 라우팅되므로 둘이 일치한다.
+ */
+public final class ShardIds {
+
+    public static final int SHARD_BITS = TimeOrderedIdGenerator.SHARD_BITS;
+    public static final int MAX_SHARDS = 1 << SHARD_BITS;
+
+    //node id 가 설정된 뒤 처음 쓸 때 만든다
+    private static volatile TimeOrderedIdGenerator[] generators;
+
+    private ShardIds() {
+    }
+
+    public static long nextId(int shard) {
+        return generators()[shard].nextId();
+    }
+
+    public static int shardOf(long id) {
+        return TimeOrderedIdGenerator.shardOf(id);
+    }
+
+    private static TimeOrderedIdGenerator[] generators() {
+        TimeOrderedIdGenerator[] result = generators;
+        if (result == null) {
+            synchronized (ShardIds.class) {
+                result = generators;
+                if (result == null) {
+                    result = createGenerators(TimeOrderedIdGenerator.shared());
+                    generators = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    //같은 node 영역의 생성기는 하나만 있어야 id 가 겹치지 않으므로 shard 0 은 공유 생성기를 그대로 쓴다
+    static TimeOrderedIdGenerator[] createGenerators(TimeOrderedIdGenerator shared) {
+        TimeOrderedIdGenerator[] result = new TimeOrderedIdGenerator[MAX_SHARDS];
+        result[0] = shared;
+        for (int shard = 1; shard < MAX_SHARDS; shard++) {
+            result[shard] = TimeOrderedIdGenerator.of(shared.getNodeId(), shard);
+        }
+        return result;
+    }
+}
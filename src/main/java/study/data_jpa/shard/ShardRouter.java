@@ -0,0 +1,118 @@
+package study.data_jpa.shard;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * shard 를 지정해서 새 트랜잭션으로 실행한다. 여러 shard 작업은 shard 마다 다른 스레드 / 커넥션에서 동시에 실행한다.
+ */
+@Component
+@ConditionalOnProperty(name = "data-jpa.sharding.enabled", havingValue = "true")
+public class ShardRouter {
+
+    private final int shardCount;
+    private final TransactionTemplate tx;
+    private final TransactionTemplate readOnlyTx;
+    private final ExecutorService executor;
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    public ShardRouter(PlatformTransactionManager transactionManager,
+                       @Value("${data-jpa.sharding.urls}") List<String> urls) {
+        this.shardCount = urls.size();
+        this.tx = new TransactionTemplate(transactionManager);
+        //다른 shard 의 트랜잭션에 참여하지 않도록 항상 새 트랜잭션
+        this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTx.setReadOnly(true);
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(shardCount, r -> {
+            Thread thread = new Thread(r, "shard-query-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    //새 팀을 놓을 shard (round-robin)
+    public int nextShard() {
+        return Math.floorMod(nextShard.getAndIncrement(), shardCount);
+    }
+
+    public <T> T write(int shard, Supplier<T> action) {
+        return ShardContext.call(checked(shard), () -> tx.execute(status -> action.get()));
+    }
+
+    public <T> T read(int shard, Supplier<T> action) {
+        return ShardContext.call(checked(shard), () -> readOnlyTx.execute(status -> action.get()));
+    }
+
+    /**
+     * 모든 shard 에서 동시에 읽고 shard 순서대로 결과를 돌려준다.
+     */
+    public <T> List<T> readAll(IntFunction<T> action) {
+        return readEach(allShards(), action);
+    }
+
+    public <T> List<T> readEach(List<Integer> shards, IntFunction<T> action) {
+        List<Future<T>> futures = new ArrayList<>();
+        for (int shard : shards) {
+            futures.add(executor.submit(() -> read(shard, () -> action.apply(shard))));
+        }
+        List<T> results = new ArrayList<>();
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("interrupted while querying shards", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    public List<Integer> allShards() {
+        List<Integer> shards = new ArrayList<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            shards.add(shard);
+        }
+        return shards;
+    }
+
+    private int checked(int shard) {
+        if (shard < 0 || shard >= shardCount) {
+            throw new IllegalArgumentException("no such shard: " + shard);
+        }
+        return shard;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,45 @@
+package study.data_jpa.shard;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hibernate 의 ddl-auto 는 기본 shard(0)에만 적용되므로 나머지 shard 에도 같은 스키마를 만든다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "data-jpa.sharding.enabled", havingValue = "true")
+public class ShardSchemaExporter {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ShardRouter shardRouter;
+    private final String ddlAuto;
+
+    public ShardSchemaExporter(EntityManagerFactory entityManagerFactory,
+                               ShardRouter shardRouter,
+                               @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.shardRouter = shardRouter;
+        this.ddlAuto = ddlAuto;
+    }
+
+    @PostConstruct
+    public void export() {
+        if (!ddlAuto.startsWith("create")) {
+            return;
+        }
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        for (int shard = 1; shard < shardRouter.getShardCount(); shard++) {
+            ShardContext.run(shard, () -> {
+                sessionFactory.getSchemaManager().dropMappedObjects(false);
+                sessionFactory.getSchemaManager().exportMappedObjects(false);
+            });
+            log.info("exported schema to shard {}", shard);
+        }
+    }
+}
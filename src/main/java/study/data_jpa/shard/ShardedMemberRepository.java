@@ -0,0 +1,211 @@
+package study.data_jpa.shard;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import study.data_jpa.dto.MemberDto;
+import study.data_jpa.entity.Member;
+import study.data_jpa.entity.Team;
+import study.data_jpa.repository.MemberRepository;
+import study.data_jpa.repository.TeamRepository;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+/**
+ * 팀 id 기준으로 팀과 그 회원을 같은 shard 에 둔다.
+ * id 로 shard 를 알 수 있는 작업은 한 shard 로 바로 보내고, 나머지는 모든 shard 에 동시에 묻고 합친다.
+ * 샤딩을 켜면 쓰기는 이 클래스를 거쳐야 id 와 저장 위치가 맞는다.
+ * 기본 데이터소스만 읽는 빈(회원 컨트롤러, 리드 모델, 인덱스 등)은 {@link ConditionalOnShardingDisabled} 로 만들어지지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "data-jpa.sharding.enabled", havingValue = "true")
+public class ShardedMemberRepository {
+
+    private final ShardRouter shardRouter;
+    private final ShardDirectory shardDirectory;
+    private final MemberRepository memberRepository;
+    private final TeamRepository teamRepository;
+
+    public Team saveTeam(Team team) {
+        return saveTeam(team, shardRouter.nextShard());
+    }
+
+    public Team saveTeam(Team team, int shard) {
+        return shardRouter.write(shard, () -> teamRepository.save(team));
+    }
+
+    //팀이 있으면 팀의 shard, 없으면 username 해시
+    public Member saveMember(Member member) {
+        int shard = member.getTeam() != null
+                ? ShardIds.shardOf(member.getTeam().getId())
+                : Math.floorMod(member.getUsername() == null ? 0 : member.getUsername().hashCode(), shardRouter.getShardCount());
+        return shardRouter.write(shard, () -> memberRepository.save(member));
+    }
+
+    public Optional<Member> findById(Long id) {
+        return shardRouter.read(ShardIds.shardOf(id), () -> memberRepository.findById(id));
+    }
+
+    public Optional<Team> findTeamById(Long id) {
+        return shardRouter.read(ShardIds.shardOf(id), () -> teamRepository.findById(id));
+    }
+
+    //팀 이동은 같은 shard 안에서만 (shard 간 이동은 회원 id 가 바뀌어야 한다)
+    public void changeTeam(Long memberId, Long teamId) {
+        int shard = ShardIds.shardOf(memberId);
+        if (ShardIds.shardOf(teamId) != shard) {
+            throw new IllegalArgumentException("member " + memberId + " and team " + teamId + " are on different shards");
+        }
+        shardRouter.write(shard, () -> {
+            Member member = memberRepository.findById(memberId)
+                    .orElseThrow(() -> new IllegalArgumentException("no such member: " + memberId));
+            Team team = teamRepository.findById(teamId)
+                    .orElseThrow(() -> new IllegalArgumentException("no such team: " + teamId));
+            member.changeTeam(team);
+            return member;
+        });
+    }
+
+    //디렉터리는 노드마다 메모리에 있으므로 모르는 이름은 (다른 노드가 저장했을 수 있어) 모든 shard 에 묻는다
+    public List<Member> findByUsername(String username) {
+        List<Integer> shards = shardDirectory.shardsOf(username);
+        boolean miss = shards.isEmpty();
+        List<List<Member>> found = shardRouter.readEach(miss ? shardRouter.allShards() : shards,
+                shard -> memberRepository.findByUsername(username));
+
+        List<Member> result = new ArrayList<>();
+        found.forEach(result::addAll);
+        if (miss) {
+            result.forEach(member -> shardDirectory.record(username, ShardIds.shardOf(member.getId())));
+        }
+        return result;
+    }
+
+    /**
+     * shard 마다 offset + size 건을 같은 정렬로 읽어 merge 한다. 깊은 페이지일수록 비싸므로 keyset 조회를 권장.
+     * 정렬 속성은 Member 의 단순 속성이어야 한다.
+     */
+    public Page<Member> findAll(Pageable pageable) {
+        Sort sort = pageable.getSort().getOrderFor("id") == null
+                ? pageable.getSort().and(Sort.by("id"))
+                : pageable.getSort();
+        if (pageable.isUnpaged()) {
+            List<List<Member>> shards = shardRouter.readAll(shard -> memberRepository.findAll(sort));
+            List<Member> merged = merge(shards, comparator(Member.class, sort), 0, Integer.MAX_VALUE);
+            return new PageImpl<>(merged);
+        }
+        PageRequest perShard = PageRequest.of(0, (int) pageable.getOffset() + pageable.getPageSize(), sort);
+        List<Page<Member>> pages = shardRouter.readAll(shard -> memberRepository.findAll(perShard));
+
+        long total = pages.stream().mapToLong(Page::getTotalElements).sum();
+        List<List<Member>> contents = pages.stream().map(Page::getContent).toList();
+        List<Member> merged = merge(contents, comparator(Member.class, sort), pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(merged, pageable, total);
+    }
+
+    public List<MemberDto> findMemberDtoList() {
+        List<MemberDto> result = new ArrayList<>();
+        shardRouter.readAll(shard -> memberRepository.findMemberDtoList()).forEach(result::addAll);
+        return result;
+    }
+
+    //정렬된 shard 결과들을 k-way merge 해서 offset 부터 limit 건
+    static <T> List<T> merge(List<List<T>> sortedLists, Comparator<? super T> comparator, long offset, int limit) {
+        PriorityQueue<Cursor<T>> heap = new PriorityQueue<>((a, b) -> comparator.compare(a.head(), b.head()));
+        for (List<T> list : sortedLists) {
+            if (!list.isEmpty()) {
+                heap.add(new Cursor<>(list));
+            }
+        }
+        List<T> result = new ArrayList<>();
+        long skipped = 0;
+        while (!heap.isEmpty() && result.size() < limit) {
+            Cursor<T> cursor = heap.poll();
+            T next = cursor.head();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                result.add(next);
+            }
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+        }
+        return result;
+    }
+
+    //정렬 속성의 getter 는 조회마다 한 번만 찾는다 (merge 중 비교마다 찾지 않는다)
+    static <T> Comparator<T> comparator(Class<T> type, Sort sort) {
+        Comparator<T> result = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            Method getter = getter(type, order.getProperty());
+            Comparator<T> byProperty = (a, b) -> compareValues(invoke(getter, a), invoke(getter, b));
+            result = result.thenComparing(order.isAscending() ? byProperty : byProperty.reversed());
+        }
+        return result;
+    }
+
+    private static Method getter(Class<?> type, String property) {
+        PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(type, property);
+        if (descriptor == null || descriptor.getReadMethod() == null) {
+            throw new IllegalArgumentException("cannot sort " + type.getSimpleName() + " by " + property);
+        }
+        Method getter = descriptor.getReadMethod();
+        getter.setAccessible(true);
+        return getter;
+    }
+
+    private static Object invoke(Method getter, Object target) {
+        try {
+            return getter.invoke(target);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("cannot read " + getter.getName() + " for sorting", e);
+        }
+    }
+
+    //DB 정렬과 같은 규칙: null 은 오름차순에서 앞
+    @SuppressWarnings("unchecked")
+    private static int compareValues(Object a, Object b) {
+        if (a == b) {
+            return 0;
+        }
+        if (a == null) {
+            return -1;
+        }
+        if (b == null) {
+            return 1;
+        }
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+
+    private static final class Cursor<T> {
+        private final List<T> list;
+        private int index;
+
+        Cursor(List<T> list) {
+            this.list = list;
+        }
+
+        T head() {
+            return list.get(index);
+        }
+
+        boolean advance() {
+            return ++index < list.size();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package study.data_jpa.shard;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * data-jpa.sharding.urls 의 데이터소스들을 하나의 라우팅 데이터소스로 묶는다. 계정은 spring.datasource 를 따른다.
+ * 예: data-jpa.sharding.urls=jdbc:h2:tcp://localhost/~/shard0,jdbc:h2:tcp://localhost/~/shard1
+ */
+@Configuration
+@ConditionalOnProperty(name = "data-jpa.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties,
+                                 @Value("${data-jpa.sharding.urls}") List<String> urls) {
+        if (urls.isEmpty() || urls.size() > ShardIds.MAX_SHARDS) {
+            throw new IllegalArgumentException("sharding requires 1 ~ " + ShardIds.MAX_SHARDS + " urls: " + urls);
+        }
+        Map<Object, Object> shards = new HashMap<>();
+        for (int shard = 0; shard < urls.size(); shard++) {
+            shards.put(shard, DataSourceBuilder.create()
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(urls.get(shard).trim())
+                    .username(properties.determineUsername())
+                    .password(properties.determinePassword())
+                    .build());
+        }
+        ShardRoutingDataSource dataSource = new ShardRoutingDataSource();
+        dataSource.setTargetDataSources(shards);
+        dataSource.setDefaultTargetDataSource(shards.get(0));
+        return dataSource;
+    }
+}
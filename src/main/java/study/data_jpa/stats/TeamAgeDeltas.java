@@ -0,0 +1,131 @@
+package study.data_jpa.stats;
+
+import jakarta.persistence.EntityManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 한 트랜잭션에서 쌓인 팀별 (나이, 회원 수) 변화량. apply 로 요약 테이블에 더한다.
+ */
+public class TeamAgeDeltas {
+
+    static final String DUPLICATE_KEY = "23505";
+
+    static final String MERGE_STATS = "merge into team_age_stats s"
+            + " using (values (cast(? as bigint), cast(? as bigint), cast(? as bigint))) v(team_id, member_count, age_sum)"
+            + " on s.team_id = v.team_id"
+            + " when matched then update set member_count = s.member_count + v.member_count, age_sum = s.age_sum + v.age_sum"
+            + " when not matched then insert (team_id, member_count, age_sum) values (v.team_id, v.member_count, v.age_sum)";
+
+    static final String MERGE_HISTOGRAM = "merge into team_age_histogram h"
+            + " using (values (cast(? as bigint), cast(? as integer), cast(? as bigint))) v(team_id, age, member_count)"
+            + " on h.team_id = v.team_id and h.age = v.age"
+            + " when matched then update set member_count = h.member_count + v.member_count"
+            + " when not matched then insert (team_id, age, member_count) values (v.team_id, v.age, v.member_count)";
+
+    //teamId -> (age -> 회원 수 변화)
+    private final Map<Long, Map<Integer, Long>> deltas = new HashMap<>();
+
+    /**
+     * bulk 로 삭제하거나 팀에서 빼기 직전의 회원들을 (팀, 나이) 별로 세어 빼는 delta 를 만든다.
+     */
+    @SuppressWarnings("unchecked")
+    public static TeamAgeDeltas removing(EntityManager em, Collection<Long> memberIds) {
+        TeamAgeDeltas deltas = new TeamAgeDeltas();
+        List<Object[]> groups = em.createNativeQuery(
+                        "select team_id, age, count(*) from member where member_id in (:ids) and team_id is not null"
+                                + " group by team_id, age")
+                .setParameter("ids", memberIds)
+                .getResultList();
+        for (Object[] group : groups) {
+            deltas.change(((Number) group[0]).longValue(), ((Number) group[1]).intValue(), -((Number) group[2]).longValue());
+        }
+        return deltas;
+    }
+
+    public void add(Long teamId, int age) {
+        change(teamId, age, 1);
+    }
+
+    public void remove(Long teamId, int age) {
+        change(teamId, age, -1);
+    }
+
+    public void change(Long teamId, int age, long count) {
+        if (teamId == null || count == 0) {
+            return;
+        }
+        deltas.computeIfAbsent(teamId, id -> new HashMap<>()).merge(age, count, Long::sum);
+    }
+
+    public boolean isEmpty() {
+        return deltas.isEmpty();
+    }
+
+    public void clear() {
+        deltas.clear();
+    }
+
+    /**
+     * 팀 요약 행을 먼저 MERGE 해서 잠근 뒤 나이 분포를 반영한다. 같은 팀을 바꾸는 트랜잭션은 요약 행 잠금으로 줄을 선다.
+     */
+    public void apply(Connection connection) throws SQLException {
+        try (PreparedStatement mergeStats = connection.prepareStatement(MERGE_STATS);
+             PreparedStatement mergeHistogram = connection.prepareStatement(MERGE_HISTOGRAM);
+             PreparedStatement deleteEmpty = connection.prepareStatement(
+                     "delete from team_age_histogram where team_id = ? and member_count = 0")) {
+
+            //여러 팀을 바꾸는 트랜잭션끼리 교착되지 않도록 team id 순서로 잠근다
+            for (Map.Entry<Long, Map<Integer, Long>> team : new TreeMap<>(deltas).entrySet()) {
+                Long teamId = team.getKey();
+                long memberCount = 0;
+                long ageSum = 0;
+                for (Map.Entry<Integer, Long> age : team.getValue().entrySet()) {
+                    memberCount += age.getValue();
+                    ageSum += age.getValue() * age.getKey();
+                }
+
+                mergeStats.setLong(1, teamId);
+                mergeStats.setLong(2, memberCount);
+                mergeStats.setLong(3, ageSum);
+                merge(mergeStats);
+
+                for (Map.Entry<Integer, Long> age : team.getValue().entrySet()) {
+                    if (age.getValue() == 0) {
+                        continue;
+                    }
+                    mergeHistogram.setLong(1, teamId);
+                    mergeHistogram.setInt(2, age.getKey());
+                    mergeHistogram.setLong(3, age.getValue());
+                    merge(mergeHistogram);
+                }
+
+                deleteEmpty.setLong(1, teamId);
+                deleteEmpty.executeUpdate();
+            }
+        }
+        deltas.clear();
+    }
+
+    /**
+     * 같은 키의 첫 행을 두 트랜잭션이 동시에 넣으면 늦은 쪽 MERGE 는 앞 트랜잭션 커밋을 기다린 뒤 중복 키로 실패한다.
+     * H2 는 실패한 문장만 되돌리므로 한 번 더 실행하면 이번엔 update 경로를 탄다.
+     */
+    static void merge(PreparedStatement merge) throws SQLException {
+        try {
+            merge.executeUpdate();
+        } catch (SQLException e) {
+            if (!DUPLICATE_KEY.equals(e.getSQLState())) {
+                throw e;
+            }
+            merge.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package study.data_jpa.stats;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.stereotype.Component;
+import study.data_jpa.entity.Member;
+import study.data_jpa.entity.Team;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 회원 insert / delete / 팀 변경 / 나이 변경을 팀별 delta 로 모아 커밋 직전에 team_age_stats 에 반영한다.
+ * flush 이후 같은 트랜잭션 안에서 반영되므로 회원 변경과 요약이 함께 커밋되거나 함께 롤백된다.
+ */
+@Component
+@RequiredArgsConstructor
+public class TeamAgeStatsMaintainer implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    //bulk 나이 이동 시 (team_id, age) PK 충돌을 피하기 위해 잠시 옮겨두는 범위
+    private static final int AGE_SHIFT_OFFSET = 1_000_000;
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final Map<SharedSessionContractImplementor, TeamAgeDeltas> pending = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            EntityPersister persister = event.getPersister();
+            deltasFor(event.getSession()).add(teamId(event.getState(), persister), age(event.getState(), persister));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member) || event.getOldState() == null) {
+            //이전 상태를 모르는 경우(detached merge 등)는 reconcile 에 맡긴다
+            return;
+        }
+        EntityPersister persister = event.getPersister();
+        Long oldTeamId = teamId(event.getOldState(), persister);
+        int oldAge = age(event.getOldState(), persister);
+        Long newTeamId = teamId(event.getState(), persister);
+        int newAge = age(event.getState(), persister);
+        if (Objects.equals(oldTeamId, newTeamId) && oldAge == newAge) {
+            return;
+        }
+        TeamAgeDeltas deltas = deltasFor(event.getSession());
+        deltas.remove(oldTeamId, oldAge);
+        deltas.add(newTeamId, newAge);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            EntityPersister persister = event.getPersister();
+            deltasFor(event.getSession()).remove(teamId(event.getDeletedState(), persister), age(event.getDeletedState(), persister));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * flush 하고 지금까지 모인 delta 를 바로 반영한다. bulk 쿼리 전에 호출해야 순서가 맞는다.
+     */
+    public void applyPending(EntityManager em) {
+        em.flush();
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        TeamAgeDeltas deltas = pending.get(session);
+        if (deltas != null && !deltas.isEmpty()) {
+            session.doWork(deltas::apply);
+        }
+    }
+
+    /**
+     * age 이상인 회원의 나이가 모두 1 증가한 뒤 호출한다. 회원 수가 아니라 (팀, 나이) 행 수에 비례한다.
+     */
+    public void shiftAges(EntityManager em, int age) {
+        em.createNativeQuery("update team_age_histogram set age = age + ? where age >= ?")
+                .setParameter(1, AGE_SHIFT_OFFSET + 1)
+                .setParameter(2, age)
+                .executeUpdate();
+        em.createNativeQuery("update team_age_histogram set age = age - ? where age >= ?")
+                .setParameter(1, AGE_SHIFT_OFFSET)
+                .setParameter(2, AGE_SHIFT_OFFSET)
+                .executeUpdate();
+        em.createNativeQuery("update team_age_stats s set age_sum = age_sum + coalesce("
+                        + "(select sum(h.member_count) from team_age_histogram h where h.team_id = s.team_id and h.age > ?), 0)")
+                .setParameter(1, age)
+                .executeUpdate();
+    }
+
+    private TeamAgeDeltas deltasFor(EventSource session) {
+        return pending.computeIfAbsent(session, s -> {
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) this::applyBeforeCompletion);
+            session.getActionQueue().registerProcess(
+                    (AfterTransactionCompletionProcess) (success, completed) -> pending.remove(completed));
+            return new TeamAgeDeltas();
+        });
+    }
+
+    private void applyBeforeCompletion(SessionImplementor session) {
+        TeamAgeDeltas deltas = pending.get(session);
+        if (deltas != null && !deltas.isEmpty()) {
+            session.doWork(deltas::apply);
+        }
+    }
+
+    private static Long teamId(Object[] state, EntityPersister persister) {
+        Object team = state[propertyIndex(persister, "team")];
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy proxy) {
+            return (Long) proxy.getHibernateLazyInitializer().getIdentifier();
+        }
+        return ((Team) team).getId();
+    }
+
+    private static int age(Object[] state, EntityPersister persister) {
+        return (Integer) state[propertyIndex(persister, "age")];
+    }
+
+    private static int propertyIndex(EntityPersister persister, String name) {
+        String[] names = persister.getPropertyNames();
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("no property " + name + " on " + persister.getEntityName());
+    }
+}
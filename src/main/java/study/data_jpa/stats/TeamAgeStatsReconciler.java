@@ -0,0 +1,92 @@
+package study.data_jpa.stats;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import study.data_jpa.entity.TeamAgeStats;
+import study.data_jpa.shard.ConditionalOnShardingDisabled;
+
+import java.sql.PreparedStatement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * team_age_stats 를 member 테이블 기준으로 다시 계산해 어긋난 팀만 고친다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnShardingDisabled
+public class TeamAgeStatsReconciler {
+
+    private static final String INSERT_MISSING = "merge into team_age_stats s"
+            + " using (select distinct team_id from member where team_id is not null) v"
+            + " on s.team_id = v.team_id"
+            + " when not matched then insert (team_id, member_count, age_sum) values (v.team_id, 0, 0)";
+
+    private final EntityManager em;
+
+    @Scheduled(cron = "${data-jpa.team-stats.reconcile-cron:0 0 4 * * *}")
+    @Transactional
+    public int reconcile() {
+        //없는 요약 행은 잠글 수 없으므로 먼저 빈 행을 만들어 둔다 (있으면 그대로) - 이후 모든 대상 행을 잠글 수 있다
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement insertMissing = connection.prepareStatement(INSERT_MISSING)) {
+                TeamAgeDeltas.merge(insertMissing);
+            }
+        });
+
+        //요약 행을 잠가서 그 사이 커밋되는 delta 가 재계산 결과 위에 쌓이도록 한다
+        List<TeamAgeStats> stored = em.createQuery("select s from TeamAgeStats s", TeamAgeStats.class)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+
+        Map<Long, Map<Integer, Long>> actual = new HashMap<>();
+        List<Object[]> rows = em.createQuery(
+                        "select m.team.id, m.age, count(m) from Member m where m.team is not null group by m.team.id, m.age",
+                        Object[].class)
+                .getResultList();
+        for (Object[] row : rows) {
+            actual.computeIfAbsent((Long) row[0], id -> new HashMap<>()).put((Integer) row[1], (Long) row[2]);
+        }
+
+        int fixed = 0;
+        for (TeamAgeStats stats : stored) {
+            Map<Integer, Long> histogram = actual.remove(stats.getTeamId());
+            if (histogram == null) {
+                em.remove(stats);
+                fixed++;
+            } else if (!matches(stats, histogram)) {
+                stats.reset(histogram);
+                fixed++;
+            }
+        }
+        if (!actual.isEmpty()) {
+            //빈 행을 만든 뒤 첫 회원이 들어온 팀 - delta 가 만든 요약 행이므로 다음 실행에서 확인한다
+            log.info("team age stats created during reconcile, skipped: {}", actual.keySet());
+        }
+
+        if (fixed > 0) {
+            log.warn("team age stats reconciled: {} teams fixed", fixed);
+        }
+        return fixed;
+    }
+
+    private static boolean matches(TeamAgeStats stats, Map<Integer, Long> histogram) {
+        long memberCount = 0;
+        long ageSum = 0;
+        for (Map.Entry<Integer, Long> entry : histogram.entrySet()) {
+            memberCount += entry.getValue();
+            ageSum += (long) entry.getKey() * entry.getValue();
+        }
+        return stats.getMemberCount() == memberCount
+                && stats.getAgeSum() == ageSum
+                && histogram.equals(stats.getHistogram());
+    }
+}
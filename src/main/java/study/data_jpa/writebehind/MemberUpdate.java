@@ -0,0 +1,25 @@
+package study.data_jpa.writebehind;
+
+import study.data_jpa.entity.Member;
+
+/**
+ * 아직 DB 에 쓰지 않은 회원 변경분. null 인 필드는 변경 없음.
+ */
+public record MemberUpdate(String username, Integer age) {
+
+    //newer 의 값이 우선
+    public MemberUpdate merge(MemberUpdate newer) {
+        return new MemberUpdate(
+                newer.username != null ? newer.username : username,
+                newer.age != null ? newer.age : age);
+    }
+
+    public void applyTo(Member member) {
+        if (username != null) {
+            member.setUsername(username);
+        }
+        if (age != null) {
+            member.changeAge(age);
+        }
+    }
+}
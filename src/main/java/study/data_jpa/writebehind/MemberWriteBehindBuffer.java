@@ -0,0 +1,263 @@
+package study.data_jpa.writebehind;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.data_jpa.entity.Member;
+import study.data_jpa.shard.ConditionalOnShardingDisabled;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 회원 필드 변경을 id 별로 합쳐 두었다가 주기적으로(또는 flush-size 를 넘으면) 한 트랜잭션에서 batch UPDATE 한다.
+ * 엔티티를 통해 쓰므로 감사 필드와 Hibernate 이벤트(팀 통계, 검색 인덱스 등)는 그대로 동작한다.
+ * 배치가 실패하면 행 단위로 다시 써서 실패한 회원만 골라내고, max-attempts 번 실패한 변경은 dead letter 로 옮긴다.
+ * 종료 시 남은 변경을 모두 쓰지만, 프로세스가 비정상 종료되면 버퍼에 있던 변경은 유실된다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "data-jpa.write-behind.enabled", havingValue = "true")
+@ConditionalOnShardingDisabled
+public class MemberWriteBehindBuffer {
+
+    private static final int LOAD_BATCH_SIZE = 500;
+
+    private final EntityManager em;
+    private final TransactionTemplate flushTx;
+    private final int flushSize;
+    private final int capacity;
+    private final int maxAttempts;
+
+    //키 단위 잠금(ConcurrentHashMap bin lock)으로 같은 회원의 변경은 도착 순서대로 합쳐진다
+    private final Map<Long, MemberUpdate> pending = new ConcurrentHashMap<>();
+    //쓰는 중인 변경 - 커밋 전까지 조회에서 보이도록 유지
+    private final Map<Long, MemberUpdate> inFlight = new ConcurrentHashMap<>();
+    //연속 실패 횟수와 포기한 변경 - 원인을 고친 뒤 requeueDeadLetters 로 다시 넣는다
+    private final Map<Long, Integer> attempts = new ConcurrentHashMap<>();
+    private final Map<Long, MemberUpdate> deadLetters = new ConcurrentHashMap<>();
+
+    //flush 는 한 번에 하나씩 실행해야 배치 간 순서가 보장된다
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private volatile boolean closed;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+
+    public MemberWriteBehindBuffer(EntityManager em,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${data-jpa.write-behind.interval:200}") long intervalMillis,
+                                   @Value("${data-jpa.write-behind.flush-size:1000}") int flushSize,
+                                   @Value("${data-jpa.write-behind.capacity:10000}") int capacity,
+                                   @Value("${data-jpa.write-behind.max-attempts:3}") int maxAttempts) {
+        this.em = em;
+        this.flushTx = new TransactionTemplate(transactionManager);
+        this.flushTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.flushSize = flushSize;
+        this.capacity = capacity;
+        this.maxAttempts = maxAttempts;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "member-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void changeUsername(Long memberId, String username) {
+        enqueue(memberId, new MemberUpdate(username, null));
+    }
+
+    public void changeAge(Long memberId, int age) {
+        enqueue(memberId, new MemberUpdate(null, age));
+    }
+
+    /**
+     * 아직 커밋되지 않은 변경. 쓰는 중인 배치 위에 그 이후 변경을 덮어서 돌려준다.
+     */
+    public Optional<MemberUpdate> pending(Long memberId) {
+        MemberUpdate queued = pending.get(memberId);
+        MemberUpdate writing = inFlight.get(memberId);
+        if (writing == null) {
+            return Optional.ofNullable(queued);
+        }
+        return Optional.of(queued == null ? writing : writing.merge(queued));
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    public long getReceived() {
+        return received.get();
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public Map<Long, MemberUpdate> getDeadLetters() {
+        return Collections.unmodifiableMap(deadLetters);
+    }
+
+    /**
+     * dead letter 를 다시 pending 으로 돌린다. 그 사이 들어온 변경이 더 최신이다. 돌린 회원 수를 돌려준다.
+     */
+    public int requeueDeadLetters() {
+        int requeued = 0;
+        for (Long id : deadLetters.keySet()) {
+            MemberUpdate update = deadLetters.remove(id);
+            if (update != null) {
+                pending.merge(id, update, (newer, dead) -> dead.merge(newer));
+                requeued++;
+            }
+        }
+        return requeued;
+    }
+
+    private void enqueue(Long memberId, MemberUpdate update) {
+        if (closed) {
+            throw new IllegalStateException("write-behind buffer is closed");
+        }
+        received.incrementAndGet();
+        pending.merge(memberId, update, MemberUpdate::merge);
+
+        //가득 차면 호출한 스레드가 직접 flush (caller-runs) - 생산 속도가 쓰기 속도에 맞춰진다
+        //호출자의 변경은 이미 합쳐 두었으므로 flush 가 실패해도 다음 flush 에서 다시 쓴다
+        if (pending.size() > capacity) {
+            flushQuietly();
+        }
+
+        if (pending.size() >= flushSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushRequested.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    /**
+     * 지금까지 쌓인 변경을 한 트랜잭션으로 쓴다. 쓴 회원 수를 돌려준다.
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            Map<Long, MemberUpdate> batch = takeBatch();
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            try {
+                flushTx.executeWithoutResult(status -> write(batch));
+                batch.keySet().forEach(attempts::remove);
+                written.addAndGet(batch.size());
+                return batch.size();
+            } catch (RuntimeException e) {
+                //한 회원 때문에 배치 전체가 계속 실패하지 않도록 행 단위로 다시 쓴다
+                log.warn("write-behind batch of {} members failed, retrying row by row", batch.size(), e);
+                return writeRowByRow(batch);
+            } finally {
+                batch.keySet().forEach(inFlight::remove);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private int writeRowByRow(Map<Long, MemberUpdate> batch) {
+        int count = 0;
+        for (Map.Entry<Long, MemberUpdate> entry : batch.entrySet()) {
+            Long id = entry.getKey();
+            MemberUpdate update = entry.getValue();
+            try {
+                flushTx.executeWithoutResult(status -> write(Map.of(id, update)));
+                attempts.remove(id);
+                count++;
+            } catch (RuntimeException e) {
+                failed(id, update, e);
+            }
+        }
+        written.addAndGet(count);
+        return count;
+    }
+
+    private void failed(Long id, MemberUpdate update, RuntimeException e) {
+        int attempt = attempts.merge(id, 1, Integer::sum);
+        if (attempt < maxAttempts) {
+            //되돌려 놓는다 - 그 사이 들어온 변경이 더 최신
+            pending.merge(id, update, (newer, failed) -> failed.merge(newer));
+            return;
+        }
+        attempts.remove(id);
+        deadLetters.merge(id, update, MemberUpdate::merge);
+        log.error("write-behind update of member {} moved to dead letters after {} attempts: {}", id, attempt, update, e);
+    }
+
+    private Map<Long, MemberUpdate> takeBatch() {
+        Map<Long, MemberUpdate> batch = new HashMap<>();
+        for (Map.Entry<Long, MemberUpdate> entry : pending.entrySet()) {
+            Long id = entry.getKey();
+            MemberUpdate update = entry.getValue();
+            //조회가 빈틈을 보지 않도록 inFlight 에 먼저 넣고 pending 에서 뺀다
+            inFlight.put(id, update);
+            if (pending.remove(id, update)) {
+                batch.put(id, update);
+            } else {
+                inFlight.remove(id); //그 사이 합쳐졌으면 다음 배치로
+            }
+        }
+        return batch;
+    }
+
+    private void write(Map<Long, MemberUpdate> batch) {
+        List<Member> members = em.unwrap(Session.class)
+                .byMultipleIds(Member.class)
+                .withBatchSize(LOAD_BATCH_SIZE)
+                .multiLoad(new ArrayList<>(batch.keySet()));
+        for (Member member : members) {
+            if (member != null) { //이미 삭제된 회원의 변경은 버린다
+                batch.get(member.getId()).applyTo(member);
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("write-behind flush failed, {} members pending", pending.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        closed = true;
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        for (int attempt = 0; attempt < 3 && !pending.isEmpty(); attempt++) {
+            flushQuietly();
+        }
+        if (!pending.isEmpty()) {
+            log.error("write-behind buffer closed with {} unwritten members", pending.size());
+        }
+    }
+}
@@ -0,0 +1,21 @@
+-- item.id 를 varchar 문자열 키에서 ItemIdConverter 가 쓰는 바이너리 키로 옮긴다 (H2)
+-- 소문자 UUID 표기(36자) 는 16byte 로, UTF-8 로 16byte 인 기존 id 는 태그(0x00)를 붙여 17byte 로,
+-- 그 외 문자열은 UTF-8 바이트 그대로 옮긴다. (대문자 UUID 표기는 문자열로 남아 원래 값 그대로 읽힌다)
+
+-- 기존 varchar(255) 의 어떤 값도 담을 수 있도록 255자 * UTF-8 최대 3byte (ItemIdConverter.MAX_BYTES)
+alter table item add column id_bin varbinary(765);
+
+update item
+set id_bin = case
+    when regexp_like(id, '^[0-9a-f]{8}-([0-9a-f]{4}-){3}[0-9a-f]{12}$')
+        then cast(cast(id as uuid) as varbinary(16))
+    when octet_length(id) = 16
+        then X'00' || stringtoutf8(id)
+    else stringtoutf8(id)
+end;
+
+alter table item drop primary key;
+alter table item drop column id;
+alter table item alter column id_bin rename to id;
+alter table item alter column id set not null;
+alter table item add primary key (id);
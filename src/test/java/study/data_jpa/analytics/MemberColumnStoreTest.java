@@ -0,0 +1,80 @@
+package study.data_jpa.analytics;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.data_jpa.entity.Member;
+import study.data_jpa.repository.MemberRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//적재는 별도 트랜잭션에서 커밋된 데이터를 읽으므로 트랜잭션 없이 저장하고 끝나면 지운다
+@SpringBootTest
+class MemberColumnStoreTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired EntityManager em;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void cleanUp() {
+        jdbcTemplate.update("delete from member where username like 'column%'");
+    }
+
+    @Test
+    public void loadDoesNotOverwriteNewerEvents() {
+        Member member = memberRepository.save(new Member("columnLoad", 6000));
+        MemberColumnStore store = new MemberColumnStore(em, transactionManager);
+
+        //청크를 읽은 뒤 적용하기 전에 이 회원의 변경 이벤트가 먼저 반영된 경우
+        List<Object[]> rows = store.readChunk(member.getId() - 1);
+        store.getColumns().upsert(member.getId(), 6100, null);
+        store.applyChunk(rows);
+
+        assertThat(store.getColumns().ageHistogram(null)[6100]).isEqualTo(1);
+        assertThat(store.getColumns().ageHistogram(null)[6000]).isZero();
+    }
+
+    @Test
+    public void ageShiftDuringLoadIsReapplied() {
+        Member member = memberRepository.save(new Member("columnShift", 7000));
+        MemberColumnStore store = new MemberColumnStore(em, transactionManager);
+
+        List<Object[]> rows = store.readChunk(member.getId() - 1);
+        store.membersAgeShifted(7000, LocalDateTime.now());
+        store.applyChunk(rows);
+
+        assertThat(store.getColumns().ageHistogram(null)[7001]).isEqualTo(1);
+    }
+
+    @Test
+    public void deleteDuringLoadIsNotReinserted() {
+        Member member = memberRepository.save(new Member("columnDelete", 6200));
+        MemberColumnStore store = new MemberColumnStore(em, transactionManager);
+
+        List<Object[]> rows = store.readChunk(member.getId() - 1);
+        store.memberDeleted(member.getId());
+        store.applyChunk(rows);
+
+        assertThat(store.getColumns().count()).isZero();
+    }
+
+    @Test
+    public void negativeAgeDoesNotStopLoad() {
+        Member member = memberRepository.save(new Member("columnNegative", -5));
+        MemberColumnStore store = new MemberColumnStore(em, transactionManager);
+
+        store.applyChunk(store.readChunk(member.getId() - 1));
+
+        assertThat(store.getColumns().count()).isEqualTo(1);
+        assertThat(store.getColumns().clampedRows()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,93 @@
+package study.data_jpa.analytics;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberColumnsTest {
+
+    @Test
+    public void aggregates() {
+        MemberColumns columns = new MemberColumns();
+        columns.upsert(1, 10, 100L);
+        columns.upsert(2, 20, 100L);
+        columns.upsert(3, 30, 200L);
+        columns.upsert(4, 40, null);
+        columns.upsert(0, 50, 200L); //중간 삽입
+
+        assertThat(columns.count()).isEqualTo(5);
+        assertThat(columns.averageAge()).isEqualTo(30.0);
+        assertThat(columns.agePercentile(50, null)).isEqualTo(30);
+        assertThat(columns.ageHistogram(100L)[20]).isEqualTo(1);
+
+        columns.upsert(2, 25, 200L);
+        columns.remove(4);
+        columns.shiftAges(30);
+
+        List<TeamAgeSummary> teams = columns.perTeam();
+        assertThat(teams).extracting(TeamAgeSummary::teamId).containsExactly(100L, 200L);
+        assertThat(teams.get(0).memberCount()).isEqualTo(1);
+        assertThat(teams.get(1).memberCount()).isEqualTo(3);
+        assertThat(teams.get(1).minAge()).isEqualTo(25);
+        assertThat(teams.get(1).maxAge()).isEqualTo(51);
+        assertThat(columns.count()).isEqualTo(4);
+        assertThat(columns.ageHistogram(null)[40]).isZero();
+    }
+
+    @Test
+    public void insertIfAbsentKeepsNewerRow() {
+        MemberColumns columns = new MemberColumns();
+        columns.upsert(1, 40_000, 100L); //short 범위를 넘어도 잘리지 않는다
+        columns.upsert(2, 20, null);
+        columns.remove(2);
+
+        assertThat(columns.insertIfAbsent(1, 10, null)).isFalse();
+        assertThat(columns.insertIfAbsent(2, 10, null)).isFalse(); //삭제된 행을 되살리지 않는다
+        assertThat(columns.insertIfAbsent(3, 30, null)).isTrue();
+
+        assertThat(columns.count()).isEqualTo(2);
+        assertThat(columns.ageHistogram(100L)[40_000]).isEqualTo(1);
+
+        //음수 나이는 예외 없이 0 으로 보정하고 센다
+        columns.upsert(4, -1, null);
+        assertThat(columns.insertIfAbsent(5, -3, null)).isTrue();
+        assertThat(columns.count()).isEqualTo(4);
+        assertThat(columns.ageHistogram(null)[0]).isEqualTo(2);
+        assertThat(columns.clampedRows()).isEqualTo(2);
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void fullPopulation() {
+        int members = 10_000_000;
+        MemberColumns columns = new MemberColumns();
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < members; i++) {
+            columns.upsert(i, 1 + random.nextInt(90), (long) random.nextInt(5_000));
+        }
+        for (int i = 0; i < 5; i++) { //warm up
+            columns.averageAge();
+            columns.ageHistogram(null);
+            columns.perTeam();
+        }
+
+        long start = System.nanoTime();
+        double average = columns.averageAge();
+        long averageNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        int p99 = columns.agePercentile(99, null);
+        long percentileNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        int teams = columns.perTeam().size();
+        long perTeamNanos = System.nanoTime() - start;
+
+        System.out.println(members + " members, " + columns.footprintBytes() / (1024 * 1024) + "MB");
+        System.out.println("average " + average + ": " + averageNanos / 1_000_000 + "ms");
+        System.out.println("p99 " + p99 + ": " + percentileNanos / 1_000_000 + "ms");
+        System.out.println("per team (" + teams + "): " + perTeamNanos / 1_000_000 + "ms");
+    }
+}
@@ -0,0 +1,148 @@
+package study.data_jpa.archive;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.data_jpa.dto.MemberDto;
+import study.data_jpa.entity.Member;
+import study.data_jpa.entity.Team;
+import study.data_jpa.repository.MemberRepository;
+import study.data_jpa.repository.TeamJpaRepository;
+import study.data_jpa.repository.TeamRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//청크마다 커밋하므로 트랜잭션 없이 저장하고 끝나면 지운다
+@SpringBootTest(properties = "data-jpa.archive.chunk-size=2")
+class MemberArchiverTest {
+
+    //다른 테스트 데이터는 모두 최근 수정이므로 아주 오래된 시각으로 돌려 둔 회원만 대상이 된다
+    static final LocalDateTime INACTIVE = LocalDateTime.of(2000, 1, 1, 0, 0);
+    static final LocalDateTime CUTOFF = INACTIVE.plusDays(1);
+
+    @Autowired MemberArchiver memberArchiver;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired TeamJpaRepository teamJpaRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    Team team;
+    List<Long> inactiveIds = new ArrayList<>();
+    Member active;
+
+    @BeforeEach
+    public void setUp() {
+        team = teamRepository.save(new Team("archiveTeam"));
+        for (int age = 10; age <= 50; age += 10) {
+            Member member = memberRepository.save(new Member("archive" + age, age, team));
+            jdbcTemplate.update("update member set last_modified_date = ? where member_id = ?",
+                    Timestamp.valueOf(INACTIVE), member.getId());
+            inactiveIds.add(member.getId());
+        }
+        active = memberRepository.save(new Member("archive60", 60, team));
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        jdbcTemplate.update("delete from member_archive where username like 'archive%' or username = 'blocker'");
+        for (Long id : inactiveIds) {
+            jdbcTemplate.update("delete from member_tombstone where member_id = ?", id);
+        }
+        jdbcTemplate.update("delete from member where username like 'archive%'");
+        jdbcTemplate.update("delete from team_age_histogram where team_id = ?", team.getId());
+        jdbcTemplate.update("delete from team_age_stats where team_id = ?", team.getId());
+        jdbcTemplate.update("delete from team where team_id = ?", team.getId());
+    }
+
+    @Test
+    public void archiveMovesInactiveMembers() {
+        long archived = memberArchiver.archiveBefore(CUTOFF);
+
+        //cutoff 이전 회원만, chunk-size 단위로 나눠 옮긴다
+        assertThat(archived).isEqualTo(5);
+        assertThat(memberRepository.findAllById(inactiveIds)).isEmpty();
+        assertThat(memberRepository.findById(active.getId())).isPresent();
+
+        //INSERT ... SELECT 로 원래 값이 그대로 옮겨진다
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "select username, age, team_id, last_modified_date, archived_date from member_archive where member_id = ?",
+                inactiveIds.get(0));
+        assertThat(row.get("USERNAME")).isEqualTo("archive10");
+        assertThat(((Number) row.get("AGE")).intValue()).isEqualTo(10);
+        assertThat(((Number) row.get("TEAM_ID")).longValue()).isEqualTo(team.getId());
+        assertThat(((Timestamp) row.get("LAST_MODIFIED_DATE")).toLocalDateTime()).isEqualTo(INACTIVE);
+        assertThat(row.get("ARCHIVED_DATE")).isNotNull();
+        assertThat(archivedCount()).isEqualTo(5);
+    }
+
+    @Test
+    public void archiveUpdatesStatsAndChangeFeed() {
+        memberArchiver.archiveBefore(CUTOFF);
+
+        //팀 통계에서 빠지고, 변경 피드에는 삭제로 남는다
+        assertThat(new TransactionTemplate(transactionManager).execute(status ->
+                Map.copyOf(teamJpaRepository.findAgeStats(team.getId()).orElseThrow().getHistogram())))
+                .containsExactlyInAnyOrderEntriesOf(Map.of(60, 1L));
+        for (Long id : inactiveIds) {
+            assertThat(jdbcTemplate.queryForObject(
+                    "select count(*) from member_tombstone where member_id = ?", Long.class, id)).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void includingArchivedQueries() {
+        memberArchiver.archiveBefore(CUTOFF);
+
+        Optional<MemberDto> archived = memberRepository.findByIdIncludingArchived(inactiveIds.get(1));
+        assertThat(archived).isPresent();
+        assertThat(archived.get().getUsername()).isEqualTo("archive20");
+        assertThat(archived.get().getTeamName()).isEqualTo("archiveTeam");
+        assertThat(memberRepository.findByIdIncludingArchived(active.getId())).isPresent();
+
+        assertThat(memberRepository.findByUsernameIncludingArchived("archive30"))
+                .extracting(MemberDto::getId)
+                .containsExactly(inactiveIds.get(2));
+        assertThat(memberRepository.findByUsernameIncludingArchived("archive60"))
+                .extracting(MemberDto::getId)
+                .containsExactly(active.getId());
+    }
+
+    @Test
+    public void resumeAfterInterruption() {
+        //세 번째 회원 자리를 미리 차지해 두 번째 청크가 실패하게 한다
+        jdbcTemplate.update("insert into member_archive (member_id, username, age, archived_date) values (?, 'blocker', 0, ?)",
+                inactiveIds.get(2), Timestamp.valueOf(LocalDateTime.now()));
+
+        assertThatThrownBy(() -> memberArchiver.archiveBefore(CUTOFF)).isInstanceOf(RuntimeException.class);
+
+        //커밋된 첫 청크만 옮겨지고 실패한 청크는 롤백된다
+        assertThat(memberRepository.findAllById(inactiveIds)).hasSize(3);
+        assertThat(archivedCount()).isEqualTo(2);
+
+        jdbcTemplate.update("delete from member_archive where username = 'blocker'");
+        long resumed = memberArchiver.archiveBefore(CUTOFF);
+
+        assertThat(resumed).isEqualTo(3);
+        assertThat(memberRepository.findAllById(inactiveIds)).isEmpty();
+        assertThat(archivedCount()).isEqualTo(5);
+    }
+
+    private long archivedCount() {
+        return jdbcTemplate.queryForObject(
+                "select count(*) from member_archive where username like 'archive%'", Long.class);
+    }
+}
@@ -0,0 +1,30 @@
+package study.data_jpa.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NodeIdEnvironmentPostProcessorTest {
+
+    NodeIdEnvironmentPostProcessor postProcessor = new NodeIdEnvironmentPostProcessor();
+
+    @Test
+    public void missingNodeIdFailsFast() {
+        assertThatThrownBy(() -> postProcessor.postProcessEnvironment(new MockEnvironment(), null))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("data-jpa.node-id");
+    }
+
+    @Test
+    public void invalidNodeIdRejected() {
+        assertThatThrownBy(() -> postProcessor.postProcessEnvironment(
+                new MockEnvironment().withProperty("data-jpa.node-id", "node-a"), null))
+                .isInstanceOf(IllegalStateException.class);
+        //하위 4bit 는 shard 번호 자리라 node id 는 0 ~ 63
+        assertThatThrownBy(() -> postProcessor.postProcessEnvironment(
+                new MockEnvironment().withProperty("data-jpa.node-id", "64"), null))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("between 0 and");
+    }
+}
@@ -0,0 +1,157 @@
+package study.data_jpa.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import study.data_jpa.entity.Member;
+import study.data_jpa.entity.Team;
+import study.data_jpa.repository.MemberRepository;
+import study.data_jpa.repository.TeamRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//응답은 별도 스레드의 트랜잭션에서 읽으므로 테스트 데이터는 커밋해 두고 끝나면 지운다
+@SpringBootTest
+@AutoConfigureMockMvc
+class CompactMemberResponsesTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void cleanUp() {
+        jdbcTemplate.update("delete from member where username like 'compact%'");
+        jdbcTemplate.update("delete from team_age_histogram where team_id in (select team_id from team where name = 'compactTeam')");
+        jdbcTemplate.update("delete from team_age_stats where team_id in (select team_id from team where name = 'compactTeam')");
+        jdbcTemplate.update("delete from team where name = 'compactTeam'");
+    }
+
+    @Test
+    public void columnarJson() throws Exception {
+        Team team = teamRepository.save(new Team("compactTeam"));
+        Member oldest = memberRepository.save(new Member("compact0", 5, team));
+        Member older = memberRepository.save(new Member("compact1", 10, team));
+        Member newer = memberRepository.save(new Member("compact2", 20, team));
+
+        //시간순 id 라 id 내림차순이면 방금 저장한 회원이 앞에 오고, 그 뒤에는 적어도 oldest 가 남는다
+        MvcResult result = mockMvc.perform(get("/members?size=2&sort=id,desc&plan=withTeam")
+                        .accept(CompactMemberResponses.COLUMNAR_JSON_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(CompactMemberResponses.COLUMNAR_JSON_VALUE))
+                .andExpect(jsonPath("$.fields[1]").value("username"))
+                .andExpect(jsonPath("$.rows.length()").value(2))
+                .andExpect(jsonPath("$.rows[0][0]").value(newer.getId()))
+                .andExpect(jsonPath("$.rows[1][1]").value(older.getUsername()))
+                .andExpect(jsonPath("$.rows[0][4]").value("compactTeam"))
+                .andExpect(jsonPath("$.size").value(2))
+                .andExpect(jsonPath("$.hasNext").value(true));
+        assertThat(oldest.getId()).isLessThan(older.getId());
+    }
+
+    @Test
+    public void columnarJsonLastPage() throws Exception {
+        Member member = memberRepository.save(new Member("compactLast", 10));
+
+        //id 오름차순 마지막 페이지에는 방금 저장한 회원만 있고 더 읽을 행이 없다
+        MvcResult result = mockMvc.perform(get(lastPage("/members"))
+                        .accept(CompactMemberResponses.COLUMNAR_JSON_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows.length()").value(1))
+                .andExpect(jsonPath("$.rows[0][0]").value(member.getId()))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    public void binary() throws Exception {
+        memberRepository.save(new Member("compactBinaryOld", 20));
+        Member member = memberRepository.save(new Member("compactBinary", 30));
+
+        DataInputStream in = binary("/members2?size=1&sort=id,desc");
+        assertThat(in.readInt()).isEqualTo(CompactMemberResponses.BINARY_MAGIC);
+        int fields = in.readShort();
+        for (int i = 0; i < fields; i++) {
+            in.readUTF();
+        }
+        assertThat(in.readByte()).isEqualTo((byte) 1);
+        assertThat(in.readLong()).isEqualTo(member.getId());
+        assertThat(readNullable(in)).isEqualTo("compactBinary");
+        assertThat(in.readInt()).isEqualTo(30);
+        assertThat(in.readBoolean()).isFalse(); //team 없음
+        assertThat(readNullable(in)).isNull();
+        assertThat(in.readByte()).isEqualTo((byte) 0);
+        assertThat(in.readBoolean()).isTrue(); //compactBinaryOld 가 남아 있다
+        assertThat(in.available()).isZero();
+
+        //마지막 페이지
+        DataInputStream last = binary(lastPage("/members2"));
+        last.readInt();
+        int lastFields = last.readShort();
+        for (int i = 0; i < lastFields; i++) {
+            last.readUTF();
+        }
+        assertThat(last.readByte()).isEqualTo((byte) 1);
+        assertThat(last.readLong()).isEqualTo(member.getId());
+        readNullable(last);
+        last.readInt();
+        last.readBoolean();
+        readNullable(last);
+        assertThat(last.readByte()).isEqualTo((byte) 0);
+        assertThat(last.readBoolean()).isFalse();
+        assertThat(last.available()).isZero();
+    }
+
+    @Test
+    public void unknownPlanIsBadRequest() throws Exception {
+        mockMvc.perform(get("/members2?plan=everything"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/members?plan=everything").accept(CompactMemberResponses.BINARY_VALUE))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/members2?plan=with_team"))
+                .andExpect(status().isOk());
+    }
+
+    //한 건짜리 페이지로 id 오름차순 마지막 행을 가리킨다 (size 를 키우면 max-page-size 에 걸린다)
+    private String lastPage(String uri) {
+        return uri + "?size=1&sort=id,asc&page=" + (memberRepository.count() - 1);
+    }
+
+    private DataInputStream binary(String uri) throws Exception {
+        MvcResult result = mockMvc.perform(get(uri)
+                        .accept(CompactMemberResponses.BINARY_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        return new DataInputStream(new ByteArrayInputStream(body));
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
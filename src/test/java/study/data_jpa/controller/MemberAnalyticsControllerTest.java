@@ -0,0 +1,46 @@
+package study.data_jpa.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import study.data_jpa.analytics.MemberColumnStore;
+import study.data_jpa.analytics.MemberColumns;
+
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//적재 상태를 정할 수 있도록 컬럼 저장소는 mock 으로 바꾼다
+@SpringBootTest(properties = "data-jpa.analytics.enabled=true")
+@AutoConfigureMockMvc
+class MemberAnalyticsControllerTest {
+
+    @Autowired MockMvc mockMvc;
+    @MockBean MemberColumnStore memberColumnStore;
+
+    @Test
+    public void loadingIsServiceUnavailable() throws Exception {
+        given(memberColumnStore.isReady()).willReturn(false);
+
+        mockMvc.perform(get("/members/analytics/ages"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    public void percentileOutOfRangeIsBadRequest() throws Exception {
+        MemberColumns columns = new MemberColumns();
+        columns.upsert(1, 40_000, null); //short 범위를 넘는 나이도 그대로
+        given(memberColumnStore.isReady()).willReturn(true);
+        given(memberColumnStore.getColumns()).willReturn(columns);
+
+        mockMvc.perform(get("/members/analytics/ages/percentiles?p=50,101"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/members/analytics/ages/percentiles?p=50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['50.0']").value(40_000));
+    }
+}
@@ -0,0 +1,95 @@
+package study.data_jpa.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.data_jpa.entity.Member;
+import study.data_jpa.entity.Team;
+import study.data_jpa.repository.MemberRepository;
+import study.data_jpa.repository.TeamRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//검증자는 커밋된 데이터 기준이므로 트랜잭션 없이 저장하고 끝나면 지운다
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberConditionalGetTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    Team team;
+    Member member;
+
+    @AfterEach
+    public void cleanUp() {
+        jdbcTemplate.update("delete from member where member_id = ?", member.getId());
+        jdbcTemplate.update("delete from team_age_histogram where team_id = ?", team.getId());
+        jdbcTemplate.update("delete from team_age_stats where team_id = ?", team.getId());
+        jdbcTemplate.update("delete from team where team_id = ?", team.getId());
+    }
+
+    @Test
+    public void listEtagFollowsMemberAndTeamChanges() throws Exception {
+        team = teamRepository.save(new Team("etagTeam"));
+        member = memberRepository.save(new Member("etagMember", 10, team));
+
+        String etag = etag("/members2?plan=withTeam");
+        mockMvc.perform(get("/members2?plan=withTeam").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        //회원 변경
+        inTx(() -> memberRepository.findById(member.getId()).orElseThrow().setUsername("etagMember2"));
+        String afterMember = etag("/members2?plan=withTeam");
+        assertThat(afterMember).isNotEqualTo(etag);
+        mockMvc.perform(get("/members2?plan=withTeam").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+
+        //팀 이름만 바뀌어도 목록 내용(teamName)이 바뀌므로 304 가 아니어야 한다
+        inTx(() -> teamRepository.findById(team.getId()).orElseThrow().changeName("etagTeam2"));
+        String afterTeam = etag("/members2?plan=withTeam");
+        assertThat(afterTeam).isNotEqualTo(afterMember);
+        mockMvc.perform(get("/members2?plan=withTeam").header(HttpHeaders.IF_NONE_MATCH, afterMember))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/members2?plan=withTeam").header(HttpHeaders.IF_NONE_MATCH, afterTeam))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void singleMemberEtag() throws Exception {
+        team = teamRepository.save(new Team("etagTeam"));
+        member = memberRepository.save(new Member("etagMember", 10, team));
+
+        String etag = etag("/members/" + member.getId());
+        mockMvc.perform(get("/members/" + member.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        inTx(() -> memberRepository.findById(member.getId()).orElseThrow().setUsername("etagMember2"));
+        mockMvc.perform(get("/members/" + member.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    private String etag(String uri) throws Exception {
+        String etag = mockMvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+        return etag;
+    }
+
+    private void inTx(Runnable action) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> action.run());
+    }
+}
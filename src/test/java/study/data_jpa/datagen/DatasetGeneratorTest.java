@@ -0,0 +1,33 @@
+package study.data_jpa.datagen;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DatasetGeneratorTest {
+
+    @Test
+    public void zipfTeamSizes() {
+        double[] cdf = DatasetGenerator.zipfCdf(100, 1.1);
+        int[] sizes = new int[100];
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 100_000; i++) {
+            sizes[DatasetGenerator.pick(cdf, random.nextDouble())]++;
+        }
+
+        assertThat(cdf[99]).isEqualTo(1.0);
+        assertThat(sizes[0]).isGreaterThan(sizes[9] * 5);
+        assertThat(sizes[99]).isPositive();
+    }
+
+    @Test
+    public void uniformWhenNoSkew() {
+        double[] cdf = DatasetGenerator.zipfCdf(4, 0);
+
+        assertThat(DatasetGenerator.pick(cdf, 0.1)).isEqualTo(0);
+        assertThat(DatasetGenerator.pick(cdf, 0.3)).isEqualTo(1);
+        assertThat(DatasetGenerator.pick(cdf, 0.99)).isEqualTo(3);
+    }
+}
@@ -0,0 +1,75 @@
+package study.data_jpa.entity;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.data_jpa.datagen.DatasetGenerator;
+import study.data_jpa.datagen.DatasetSpec;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//./gradlew benchmark --tests '*DirtyTrackingBenchmarkTest' 와 -PnoEnhancement 를 붙인 실행 결과를 비교한다
+@Tag("benchmark")
+@SpringBootTest
+class DirtyTrackingBenchmarkTest {
+
+    static final int MEMBERS = 50_000;
+    static final int WARMUP = 20;
+    static final int FLUSHES = 100;
+
+    @Autowired DatasetGenerator datasetGenerator;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired EntityManager em;
+
+    @Test
+    public void flushWithManyManagedMembers() {
+        datasetGenerator.generate(DatasetSpec.of(100, MEMBERS, 0));
+        boolean enhanced = SelfDirtinessTracker.class.isAssignableFrom(Member.class);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            long heapBefore = usedHeap();
+            List<Member> members = em.createQuery("select m from Member m", Member.class).getResultList();
+            List<Team> teams = em.createQuery("select t from Team t", Team.class).getResultList();
+            long heapAfter = usedHeap();
+            int managed = members.size() + teams.size();
+            assertThat(members.size()).isGreaterThanOrEqualTo(MEMBERS);
+
+            //몇 건만 바꾸고 flush - 스냅샷 비교면 관리 중인 엔티티 수에 비례한다
+            for (int i = 0; i < WARMUP; i++) {
+                flushAfterChange(members, i);
+            }
+            long nanos = 0;
+            for (int i = 0; i < FLUSHES; i++) {
+                nanos += flushAfterChange(members, WARMUP + i);
+            }
+
+            System.out.println("enhanced = " + enhanced + ", managed entities = " + managed);
+            System.out.println("flush avg = " + nanos / FLUSHES / 1000 + " us");
+            System.out.println("heap per managed entity = " + (heapAfter - heapBefore) / managed + " bytes");
+            status.setRollbackOnly();
+        });
+    }
+
+    private long flushAfterChange(List<Member> members, int i) {
+        Member member = members.get((int) ((long) i * 7919 % members.size()));
+        member.changeAge(member.getAge() + 1);
+        long start = System.nanoTime();
+        em.flush();
+        return System.nanoTime() - start;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
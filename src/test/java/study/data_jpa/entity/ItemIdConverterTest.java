@@ -0,0 +1,73 @@
+package study.data_jpa.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ItemIdConverterTest {
+
+    ItemIdConverter converter = new ItemIdConverter();
+
+    @Test
+    public void uuidIsStoredAs16Bytes() {
+        String id = TimeOrderedUuid.nextString();
+
+        byte[] column = converter.convertToDatabaseColumn(id);
+
+        assertThat(column).hasSize(16);
+        assertThat(converter.convertToEntityAttribute(column)).isEqualTo(id);
+    }
+
+    @Test
+    public void freeFormIdIsKept() {
+        byte[] column = converter.convertToDatabaseColumn("A");
+
+        assertThat(converter.convertToEntityAttribute(column)).isEqualTo("A");
+        assertThatThrownBy(() -> converter.convertToDatabaseColumn("a\0b"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void legacySixteenByteIdIsTagged() {
+        byte[] column = converter.convertToDatabaseColumn("0123456789abcdef");
+
+        assertThat(column).hasSize(17);
+        assertThat(converter.convertToEntityAttribute(column)).isEqualTo("0123456789abcdef");
+    }
+
+    @Test
+    public void longestLegacyIdFitsColumn() {
+        String id = "가".repeat(255);
+
+        byte[] column = converter.convertToDatabaseColumn(id);
+
+        assertThat(column).hasSize(ItemIdConverter.MAX_BYTES);
+        assertThat(converter.convertToEntityAttribute(column)).isEqualTo(id);
+    }
+
+    @Test
+    public void upperCaseUuidIsKeptAsText() {
+        String lower = TimeOrderedUuid.nextString();
+        String upper = lower.toUpperCase();
+
+        byte[] upperColumn = converter.convertToDatabaseColumn(upper);
+
+        assertThat(upperColumn).hasSize(36);
+        assertThat(converter.convertToEntityAttribute(upperColumn)).isEqualTo(upper);
+        assertThat(upperColumn).isNotEqualTo(converter.convertToDatabaseColumn(lower));
+    }
+
+    @Test
+    public void timeOrdered() throws Exception {
+        UUID first = TimeOrderedUuid.next();
+        Thread.sleep(2);
+        UUID second = TimeOrderedUuid.next();
+
+        assertThat(first.version()).isEqualTo(7);
+        assertThat(Long.compareUnsigned(first.getMostSignificantBits(), second.getMostSignificantBits()))
+                .isNegative();
+    }
+}
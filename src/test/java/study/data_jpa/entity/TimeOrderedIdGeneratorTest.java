@@ -0,0 +1,94 @@
+package study.data_jpa.entity;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimeOrderedIdGeneratorTest {
+
+    @Test
+    public void monotonic() {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(1);
+
+        long prev = generator.nextId();
+        for (int i = 0; i < 100_000; i++) {
+            long id = generator.nextId();
+            assertThat(id).isGreaterThan(prev);
+            prev = id;
+        }
+    }
+
+    @Test
+    public void uniqueAcrossThreadsAndNodes() throws Exception {
+        TimeOrderedIdGenerator node1 = new TimeOrderedIdGenerator(1);
+        TimeOrderedIdGenerator node2 = new TimeOrderedIdGenerator(2);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            TimeOrderedIdGenerator generator = t % 2 == 0 ? node1 : node2;
+            executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    ids.add(generator.nextId());
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+
+        assertThat(ids).hasSize(80_000);
+    }
+
+    @Test
+    public void layout() {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(7);
+        long before = System.currentTimeMillis();
+
+        long id = generator.nextId();
+
+        assertThat(TimeOrderedIdGenerator.nodeOf(id)).isEqualTo(7);
+        assertThat(TimeOrderedIdGenerator.timestampOf(id)).isGreaterThanOrEqualTo(before);
+        assertThatThrownBy(() -> new TimeOrderedIdGenerator(1024))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void nodeIdAndShard() {
+        long id = TimeOrderedIdGenerator.of(63, 15).nextId();
+
+        assertThat(TimeOrderedIdGenerator.nodeIdOf(id)).isEqualTo(63);
+        assertThat(TimeOrderedIdGenerator.shardOf(id)).isEqualTo(15);
+        assertThatThrownBy(() -> TimeOrderedIdGenerator.of(64, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("between 0 and 63");
+        assertThatThrownBy(() -> TimeOrderedIdGenerator.of(0, 16))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void allocationCost() {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(1);
+        int iterations = 10_000_000;
+        long blackhole = 0;
+
+        for (int i = 0; i < iterations; i++) { //warm up
+            blackhole ^= generator.nextId();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            blackhole ^= generator.nextId();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println("nextId: " + (double) elapsed / iterations + " ns/op (" + blackhole + ")");
+    }
+}
@@ -0,0 +1,48 @@
+package study.data_jpa.event;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//청크마다 별도 트랜잭션으로 지우므로 커밋된 tombstone 으로 확인한다
+@SpringBootTest(properties = "data-jpa.tombstone.prune-chunk-size=2")
+class MemberTombstonePrunerTest {
+
+    static final long BASE_ID = -9_000L;
+
+    @Autowired MemberTombstonePruner pruner;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void cleanUp() {
+        jdbcTemplate.update("delete from member_tombstone where member_id <= ?", BASE_ID);
+    }
+
+    @Test
+    public void pruneBefore() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(1);
+        for (int i = 0; i < 5; i++) {
+            insertTombstone(BASE_ID - i, cutoff.minusHours(i + 1));
+        }
+        insertTombstone(BASE_ID - 10, cutoff.plusHours(1));
+
+        long pruned = pruner.pruneBefore(cutoff);
+
+        assertThat(pruned).isGreaterThanOrEqualTo(5);
+        assertThat(jdbcTemplate.queryForList(
+                "select member_id from member_tombstone where member_id <= ?", Long.class, BASE_ID))
+                .containsExactly(BASE_ID - 10);
+    }
+
+    private void insertTombstone(long memberId, LocalDateTime deletedDate) {
+        jdbcTemplate.update("insert into member_tombstone (member_id, deleted_date) values (?, ?)",
+                memberId, Timestamp.valueOf(deletedDate));
+    }
+}
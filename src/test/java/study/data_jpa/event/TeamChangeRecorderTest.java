@@ -0,0 +1,79 @@
+package study.data_jpa.event;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.data_jpa.dto.MemberChangeFeed;
+import study.data_jpa.dto.MemberDto;
+import study.data_jpa.entity.Member;
+import study.data_jpa.entity.Team;
+import study.data_jpa.repository.MemberRepository;
+import study.data_jpa.repository.TeamRepository;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+//커밋된 수정 시각으로 확인하므로 트랜잭션 없이 저장하고 끝나면 지운다
+@SpringBootTest
+class TeamChangeRecorderTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    Team team;
+    Member member;
+
+    @AfterEach
+    public void cleanUp() {
+        jdbcTemplate.update("delete from member where member_id = ?", member.getId());
+        jdbcTemplate.update("delete from team_age_histogram where team_id = ?", team.getId());
+        jdbcTemplate.update("delete from team_age_stats where team_id = ?", team.getId());
+        jdbcTemplate.update("delete from team where team_id = ?", team.getId());
+    }
+
+    @Test
+    public void renameShowsUpInChangeFeed() {
+        team = teamRepository.save(new Team("feedTeam"));
+        member = memberRepository.save(new Member("feedMember", 10, team));
+        LocalDateTime since = lastModified();
+
+        inTx(() -> teamRepository.findById(team.getId()).orElseThrow().changeName("feedTeam2"));
+
+        assertThat(lastModified()).isAfter(since);
+        MemberChangeFeed feed = memberRepository.findChanges(since, member.getId(), 100, LocalDateTime.now().plusSeconds(1));
+        assertThat(feed.getChanged()).extracting(MemberDto::getId, MemberDto::getTeamName)
+                .contains(tuple(member.getId(), "feedTeam2"));
+    }
+
+    @Test
+    public void deleteDetachesMembersAndShowsUpInChangeFeed() {
+        team = teamRepository.save(new Team("feedTeam3"));
+        member = memberRepository.save(new Member("feedMember3", 20, team));
+        LocalDateTime since = lastModified();
+
+        inTx(() -> teamRepository.delete(teamRepository.findById(team.getId()).orElseThrow()));
+
+        assertThat(teamRepository.findById(team.getId())).isEmpty();
+        assertThat(lastModified()).isAfter(since);
+        assertThat(jdbcTemplate.queryForObject("select team_id from member where member_id = ?", Long.class, member.getId()))
+                .isNull();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from team_age_stats where team_id = ?", Long.class, team.getId()))
+                .isZero();
+    }
+
+    private LocalDateTime lastModified() {
+        return memberRepository.findLastModifiedDateById(member.getId()).orElseThrow();
+    }
+
+    private void inTx(Runnable action) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> action.run());
+    }
+}
@@ -0,0 +1,164 @@
+package study.data_jpa.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.data_jpa.datagen.DatasetGenerator;
+import study.data_jpa.datagen.DatasetSpec;
+import study.data_jpa.datagen.DatasetSummary;
+import study.data_jpa.stats.TeamAgeStatsReconciler;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * 내장 H2(mem) 에 데이터를 생성하고 회원 조회 API 를 목표 rate 로 호출한다.
+ * 결과는 build/reports/load/member-endpoints.json
+ * 예: ./gradlew benchmark -Dload.members=1000000 -Dload.rate=1000 -Dload.seconds=30
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1",
+        "decorator.datasource.enabled=false",
+        "logging.level.org.hibernate.SQL=info"
+})
+class MemberEndpointLoadTest {
+
+    static final int MEMBERS = Integer.getInteger("load.members", 200_000);
+    static final int TEAMS = Integer.getInteger("load.teams", 1_000);
+    static final int RATE = Integer.getInteger("load.rate", 500);
+    static final int SECONDS = Integer.getInteger("load.seconds", 10);
+
+    @LocalServerPort int port;
+    @Autowired DatasetGenerator datasetGenerator;
+    @Autowired TeamAgeStatsReconciler teamAgeStatsReconciler;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired ObjectMapper objectMapper;
+
+    ExecutorService clientExecutor = Executors.newFixedThreadPool(32);
+    HttpClient client = HttpClient.newBuilder()
+            .executor(clientExecutor)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    //HttpClient 는 Java 17 에서 닫을 수 없으므로 넘겨준 executor 를 직접 정리한다
+    @AfterEach
+    public void shutdownClient() throws InterruptedException {
+        clientExecutor.shutdownNow();
+        clientExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void memberEndpoints() throws Exception {
+        DatasetSummary dataset = datasetGenerator.generate(DatasetSpec.of(TEAMS, MEMBERS, MEMBERS / 10));
+        teamAgeStatsReconciler.reconcile();
+        long[] ids = jdbcTemplate.queryForList("select member_id from member limit 10000", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+        int pages = MEMBERS / 20;
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("dataset", dataset);
+        report.put("targetRate", RATE);
+        report.put("seconds", SECONDS);
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        endpoints.put("/members", run(r -> "/members?size=20&page=" + r.nextInt(pages)));
+        endpoints.put("/members2", run(r -> "/members2?size=20&page=" + r.nextInt(pages)));
+        endpoints.put("/members/{id}", run(r -> "/members/" + ids[r.nextInt(ids.length)]));
+        endpoints.put("/members2/{id}", run(r -> "/members2/" + ids[r.nextInt(ids.length)]));
+        report.put("endpoints", endpoints);
+
+        File file = new File("build/reports/load/member-endpoints.json");
+        file.getParentFile().mkdirs();
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, report);
+        System.out.println(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(report));
+    }
+
+    /**
+     * 열린 모델: 응답을 기다리지 않고 정해진 간격으로 요청을 보낸다.
+     * 지연은 실제 전송 시각이 아니라 예정 시각부터 재서 밀린 시간(coordinated omission)도 포함한다.
+     */
+    private Map<String, Object> run(Function<ThreadLocalRandom, String> path) throws InterruptedException {
+        warmUp(path);
+        int total = RATE * SECONDS;
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / RATE;
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicLong errors = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(total);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            long intended = start + i * intervalNanos;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            client.sendAsync(request(path.apply(ThreadLocalRandom.current())), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, e) -> {
+                        latencies.add(System.nanoTime() - intended);
+                        if (e != null || response.statusCode() >= 400) {
+                            errors.incrementAndGet();
+                        }
+                        done.countDown();
+                    });
+        }
+        done.await(SECONDS + 60L, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - start;
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("requests", sorted.length);
+        result.put("errors", errors.get());
+        result.put("throughput", sorted.length * 1e9 / elapsed);
+        result.put("p50Ms", percentile(sorted, 0.50));
+        result.put("p99Ms", percentile(sorted, 0.99));
+        result.put("p999Ms", percentile(sorted, 0.999));
+        result.put("maxMs", sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6);
+        return result;
+    }
+
+    private void warmUp(Function<ThreadLocalRandom, String> path) {
+        List<HttpRequest> requests = Arrays.stream(new int[200])
+                .mapToObj(i -> request(path.apply(ThreadLocalRandom.current())))
+                .toList();
+        for (HttpRequest request : requests) {
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).join();
+        }
+    }
+
+    private HttpRequest request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
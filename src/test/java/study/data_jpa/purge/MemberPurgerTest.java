@@ -0,0 +1,102 @@
+package study.data_jpa.purge;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.data_jpa.entity.Member;
+import study.data_jpa.entity.MemberTombstone;
+import study.data_jpa.entity.Team;
+import study.data_jpa.repository.MemberRepository;
+import study.data_jpa.repository.TeamJpaRepository;
+import study.data_jpa.repository.TeamRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//청크마다 커밋하므로 트랜잭션 없이 각 저장이 커밋되도록 한다
+@SpringBootTest(properties = "data-jpa.purge.chunk-size=2")
+class MemberPurgerTest {
+
+    @Autowired MemberPurger memberPurger;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired TeamJpaRepository teamJpaRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired EntityManager em;
+
+    @Test
+    public void purgeMembersByCondition() {
+        Team team = teamRepository.save(new Team("purgeTeam"));
+        List<Member> members = new ArrayList<>();
+        for (int age = 10; age <= 50; age += 10) {
+            members.add(memberRepository.save(new Member("purge" + age, age, team)));
+        }
+
+        List<PurgeProgress> progress = new ArrayList<>();
+        long purged = memberPurger.purgeMembers(new MemberPurgeCondition(team.getId(), 20, 40, null), progress::add);
+
+        assertThat(purged).isEqualTo(3);
+        assertThat(progress).hasSize(2);
+        assertThat(progress.get(1).processed()).isEqualTo(3);
+        assertThat(memberRepository.findById(members.get(0).getId())).isPresent();
+        assertThat(memberRepository.findById(members.get(2).getId())).isEmpty();
+
+        //팀 통계와 변경 피드용 tombstone 도 함께 반영
+        assertThat(new TransactionTemplate(transactionManager).execute(status ->
+                Map.copyOf(teamJpaRepository.findAgeStats(team.getId()).orElseThrow().getHistogram())))
+                .containsExactlyInAnyOrderEntriesOf(Map.of(10, 1L, 50, 1L));
+        assertThat(new TransactionTemplate(transactionManager).execute(status ->
+                em.find(MemberTombstone.class, members.get(2).getId()))).isNotNull();
+    }
+
+    @Test
+    public void purgeTeamDetachesMembers() {
+        Team team = teamRepository.save(new Team("purgeTeam2"));
+        Member m1 = memberRepository.save(new Member("purgeTeam2-1", 10, team));
+        memberRepository.save(new Member("purgeTeam2-2", 20, team));
+        memberRepository.save(new Member("purgeTeam2-3", 30, team));
+
+        long detached = memberPurger.purgeTeam(team.getId());
+
+        assertThat(detached).isEqualTo(3);
+        assertThat(teamRepository.findById(team.getId())).isEmpty();
+        assertThat(teamJpaRepository.findAgeStats(team.getId())).isEmpty();
+        assertThat(memberRepository.findById(m1.getId()).orElseThrow().getTeam()).isNull();
+    }
+
+    @Test
+    public void evictsFromCallersPersistenceContext() {
+        Team team = teamRepository.save(new Team("purgeTeam3"));
+        Member kept = memberRepository.save(new Member("purgeCaller1", 10, team));
+        Member purged = memberRepository.save(new Member("purgeCaller2", 20, team));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Member loaded = em.find(Member.class, purged.getId());
+            Member keptLoaded = em.find(Member.class, kept.getId());
+
+            memberPurger.purgeMembers(new MemberPurgeCondition(team.getId(), 20, 20, null));
+            //지운 회원만 호출한 쪽 영속성 컨텍스트에서 분리되고 다시 조회하면 없다
+            assertThat(em.contains(loaded)).isFalse();
+            assertThat(em.contains(keptLoaded)).isTrue();
+            assertThat(em.find(Member.class, purged.getId())).isNull();
+
+            memberPurger.purgeTeam(team.getId());
+            assertThat(em.contains(keptLoaded)).isFalse();
+            assertThat(em.find(Team.class, team.getId())).isNull();
+            assertThat(em.find(Member.class, kept.getId()).getTeam()).isNull();
+        });
+    }
+
+    @Test
+    public void emptyConditionRejected() {
+        assertThatThrownBy(() -> memberPurger.purgeMembers(new MemberPurgeCondition(null, null, null, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
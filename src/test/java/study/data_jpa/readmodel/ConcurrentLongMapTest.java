@@ -0,0 +1,72 @@
+package study.data_jpa.readmodel;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrentLongMapTest {
+
+    @Test
+    public void sameAsHashMap() {
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<>();
+        Map<Long, String> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+            } else {
+                String value = "v" + i;
+                assertThat(map.put(key, value)).isEqualTo(expected.put(key, value));
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (long key = 0; key < 5_000; key++) {
+            assertThat(map.get(key)).isEqualTo(expected.get(key));
+        }
+    }
+
+    @Test
+    public void readersDuringWrites() throws Exception {
+        ConcurrentLongMap<Long> map = new ConcurrentLongMap<>();
+        for (long key = 0; key < 10_000; key++) {
+            map.put(key, key);
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        //고정 키는 항상 보여야 하고 값이 섞이면 안 된다
+        Future<?> reader = executor.submit(() -> {
+            Random random = new Random();
+            while (running.get()) {
+                long key = random.nextInt(10_000);
+                assertThat(map.get(key)).isEqualTo(key);
+            }
+        });
+        Future<?> writer = executor.submit(() -> {
+            for (long key = 10_000; key < 500_000; key++) {
+                map.put(key, key);
+                if (key % 2 == 0) {
+                    map.remove(key);
+                }
+            }
+        });
+        writer.get(30, TimeUnit.SECONDS);
+        running.set(false);
+        reader.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertThat(map.size()).isEqualTo(10_000 + 245_000);
+    }
+}
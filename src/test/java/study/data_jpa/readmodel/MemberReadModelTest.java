@@ -0,0 +1,122 @@
+package study.data_jpa.readmodel;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.data_jpa.entity.Member;
+import study.data_jpa.entity.Team;
+import study.data_jpa.repository.MemberRepository;
+import study.data_jpa.repository.TeamRepository;
+import study.data_jpa.support.QueryCounter;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "data-jpa.read-model.enabled=true")
+@Import(QueryCounter.class)
+class MemberReadModelTest {
+
+    @Autowired MemberReadModel memberReadModel;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired QueryCounter queryCounter;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired EntityManager em;
+
+    @Test
+    public void followsCommits() throws Exception {
+        awaitReady();
+        Team team = teamRepository.save(new Team("readTeam"));
+        Member member = memberRepository.save(new Member("readMember", 3000, team));
+        long version = memberReadModel.getVersion();
+
+        //조회는 DB 를 거치지 않는다
+        queryCounter.count(() -> {
+            MemberSnapshot snapshot = memberReadModel.find(member.getId()).get();
+            assertThat(snapshot.username()).isEqualTo("readMember");
+            assertThat(snapshot.teamName()).isEqualTo("readTeam");
+        }).assertSelects(0);
+
+        memberRepository.bulkAgePlus(3000);
+        assertThat(memberReadModel.find(member.getId()).get().age()).isEqualTo(3001);
+
+        memberRepository.deleteById(member.getId());
+        assertThat(memberReadModel.find(member.getId())).isEmpty();
+        assertThat(memberReadModel.getVersion()).isGreaterThan(version);
+    }
+
+    @Test
+    public void followsTeamRename() throws Exception {
+        awaitReady();
+        Team team = teamRepository.save(new Team("renameTeam"));
+        Member member = memberRepository.save(new Member("renameMember", 10, team));
+        assertThat(memberReadModel.find(member.getId()).get().teamName()).isEqualTo("renameTeam");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                teamRepository.findById(team.getId()).orElseThrow().changeName("renamedTeam"));
+
+        assertThat(memberReadModel.find(member.getId()).get().teamName()).isEqualTo("renamedTeam");
+    }
+
+    @Test
+    public void bulkChangesDuringLoadAreReapplied() {
+        Team team = teamRepository.save(new Team("loadTeam"));
+        Member member = memberRepository.save(new Member("loadMember", 4000, team));
+        MemberReadModel loading = new MemberReadModel(em, transactionManager);
+
+        //청크를 읽은 뒤 그 청크를 적용하기 전에 나이 증가와 팀 이름 변경이 커밋된 경우
+        List<Object[]> rows = loading.readChunk(member.getId() - 1);
+        loading.membersAgeShifted(4000, LocalDateTime.now());
+        loading.teamRenamed(team.getId(), "loadTeam2", LocalDateTime.now().plusSeconds(1));
+        loading.applyChunk(rows);
+
+        MemberSnapshot snapshot = loading.find(member.getId()).get();
+        assertThat(snapshot.age()).isEqualTo(4001);
+        assertThat(snapshot.teamName()).isEqualTo("loadTeam2");
+    }
+
+    @Test
+    public void bulkChangeAlreadyReadIsNotAppliedTwice() {
+        Member member = memberRepository.save(new Member("loadMember2", 5000));
+        MemberReadModel loading = new MemberReadModel(em, transactionManager);
+
+        //나이 증가가 커밋된 뒤에 읽힌 행 - 수정 시각이 증가 시각과 같다
+        LocalDateTime shiftedAt = LocalDateTime.now();
+        jdbcTemplate.update("update member set age = age + 1, last_modified_date = ? where member_id = ?",
+                Timestamp.valueOf(shiftedAt), member.getId());
+        List<Object[]> rows = loading.readChunk(member.getId() - 1);
+        loading.membersAgeShifted(5000, shiftedAt);
+        loading.applyChunk(rows);
+
+        assertThat(loading.find(member.getId()).get().age()).isEqualTo(5001);
+    }
+
+    @Test
+    public void deleteDuringLoadIsNotReinserted() {
+        Member member = memberRepository.save(new Member("loadMember3", 5100));
+        MemberReadModel loading = new MemberReadModel(em, transactionManager);
+
+        //청크를 읽은 뒤 적용하기 전에 삭제가 커밋된 경우
+        List<Object[]> rows = loading.readChunk(member.getId() - 1);
+        loading.memberDeleted(member.getId());
+        loading.applyChunk(rows);
+
+        assertThat(loading.find(member.getId())).isEmpty();
+    }
+
+    private void awaitReady() throws InterruptedException {
+        for (int i = 0; i < 100 && !memberReadModel.isReady(); i++) {
+            Thread.sleep(100);
+        }
+        assertThat(memberReadModel.isReady()).isTrue();
+    }
+}
@@ -0,0 +1,63 @@
+package study.data_jpa.repository;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.data_jpa.entity.ItemIdConverter;
+import study.data_jpa.entity.TimeOrderedUuid;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+@Tag("benchmark")
+@SpringBootTest
+class ItemKeyBenchmarkTest {
+
+    static final int ROWS = 200_000;
+    static final int BATCH = 1_000;
+
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    ItemIdConverter converter = new ItemIdConverter();
+
+    @Test
+    public void stringKeyVsBinaryKey() {
+        jdbcTemplate.execute("drop table if exists item_key_string");
+        jdbcTemplate.execute("drop table if exists item_key_binary");
+        jdbcTemplate.execute("create table item_key_string (id varchar(36) primary key, created_date timestamp)");
+        jdbcTemplate.execute("create table item_key_binary (id varbinary(36) primary key, created_date timestamp)");
+
+        //현재 방식: 랜덤 UUID 문자열
+        long stringMillis = insert("item_key_string", () -> UUID.randomUUID().toString());
+        //바이너리 방식: 시간순 UUID 16byte
+        long binaryMillis = insert("item_key_binary", () -> converter.convertToDatabaseColumn(TimeOrderedUuid.nextString()));
+
+        System.out.println("string key: " + ROWS * 1000L / Math.max(1, stringMillis) + " rows/s, "
+                + diskSpace("ITEM_KEY_STRING") + " bytes");
+        System.out.println("binary key: " + ROWS * 1000L / Math.max(1, binaryMillis) + " rows/s, "
+                + diskSpace("ITEM_KEY_BINARY") + " bytes");
+
+        jdbcTemplate.execute("drop table item_key_string");
+        jdbcTemplate.execute("drop table item_key_binary");
+    }
+
+    private long insert(String table, Supplier<Object> idSupplier) {
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < ROWS; i += BATCH) {
+            List<Object[]> rows = new ArrayList<>(BATCH);
+            for (int j = 0; j < BATCH; j++) {
+                rows.add(new Object[]{idSupplier.get()});
+            }
+            jdbcTemplate.batchUpdate("insert into " + table + " (id, created_date) values (?, current_timestamp)", rows);
+        }
+        return System.currentTimeMillis() - start;
+    }
+
+    private Long diskSpace(String table) {
+        return jdbcTemplate.queryForObject("select disk_space_used(?)", Long.class, table);
+    }
+}
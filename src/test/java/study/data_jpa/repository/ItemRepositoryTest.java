@@ -6,6 +6,10 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 import study.data_jpa.entity.Item;
 
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
 //@Transactional
@@ -19,5 +23,26 @@ class ItemRepositoryTest {
         itemRepository.save(new Item("A"));
     }
 
+    @Test
+    public void saveLongLegacyId() {
+        //36byte 를 넘는 기존 문자열 id 도 그대로 저장된다
+        String id = "legacy-" + "가".repeat(200);
+        itemRepository.save(new Item(id));
+
+        assertThat(itemRepository.findById(id)).isPresent();
+    }
+
+    @Test
+    public void multiGet() {
+        Item item1 = itemRepository.save(Item.withTimeOrderedId());
+        Item item2 = itemRepository.save(Item.withTimeOrderedId());
+
+        List<Optional<Item>> result = itemRepository.multiGet(List.of(item2.getId(), "missing", item1.getId()));
+
+        assertThat(result.get(0).get().getId()).isEqualTo(item2.getId());
+        assertThat(result.get(1)).isEmpty();
+        assertThat(result.get(2).get().getId()).isEqualTo(item1.getId());
+    }
+
 
 }
\ No newline at end of file
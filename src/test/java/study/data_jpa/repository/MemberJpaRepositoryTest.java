@@ -1,12 +1,15 @@
 package study.data_jpa.repository;
 
+import jakarta.persistence.EntityManager;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
 import study.data_jpa.entity.Member;
+import study.data_jpa.support.QueryCounter;
 
 import java.util.List;
 
@@ -15,9 +18,12 @@ import static org.assertj.core.api.Assertions.assertThat;
 @SpringBootTest
 @Transactional
 @Rollback(false)
+@Import(QueryCounter.class)
 class MemberJpaRepositoryTest {
 
     @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired QueryCounter queryCounter;
+    @Autowired EntityManager em;
 
     @Test
     public void testMember() {
@@ -113,4 +119,28 @@ class MemberJpaRepositoryTest {
 
         assertThat(resultCount).isEqualTo(3);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void queryBudget() {
+        Member member = memberJpaRepository.save(new Member("budget", 10));
+        queryCounter.count(() -> em.flush()).assertInserts(1).assertSelects(0);
+        em.clear();
+
+        queryCounter.count(() -> memberJpaRepository.find(member.getId())).assertSelects(1);
+        queryCounter.count(() -> memberJpaRepository.find(member.getId())).assertSelects(0); //1차 캐시
+
+        Member findMember = memberJpaRepository.find(member.getId());
+        queryCounter.count(() -> {
+            findMember.setUsername("budgetChanged");
+            em.flush();
+        }).assertUpdates(1).assertSelects(0);
+
+        queryCounter.count(() -> memberJpaRepository.findByPage(10, 0, 3)).assertSelects(1);
+        queryCounter.count(() -> memberJpaRepository.totalCount(10)).assertSelects(1);
+
+        queryCounter.count(() -> {
+            memberJpaRepository.delete(findMember);
+            em.flush();
+        }).assertDeletes(1).assertInserts(0);
+    }
+}
@@ -5,28 +5,39 @@ import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
+import study.data_jpa.dto.MemberChangeFeed;
 import study.data_jpa.dto.MemberDto;
+import study.data_jpa.dto.MemberSearchCondition;
 import study.data_jpa.entity.Member;
 import study.data_jpa.entity.Team;
+import study.data_jpa.support.QueryCount;
+import study.data_jpa.support.QueryCounter;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @SpringBootTest
 @Transactional
 @Rollback(value = false)
+@Import(QueryCounter.class)
 class MemberRepositoryTest {
 
     @Autowired MemberRepository memberRepository;
     @Autowired TeamRepository teamRepository;
     @Autowired EntityManager em;
+    @Autowired QueryCounter queryCounter;
 
     @Test
     public void testMember() {
@@ -248,6 +259,81 @@ class MemberRepositoryTest {
         System.out.println(members4);
     }
 
+    @Test
+    public void queryBudget() {
+        Team teamA = teamRepository.save(new Team("budgetTeamA"));
+        Team teamB = teamRepository.save(new Team("budgetTeamB"));
+        Member member1 = memberRepository.save(new Member("budget1", 36, teamA));
+        Member member2 = memberRepository.save(new Member("budget2", 36, teamB));
+        memberRepository.save(new Member("budget3", 36, teamA));
+        memberRepository.save(new Member("budget4", 36, teamB));
+        em.flush();
+        em.clear();
+
+        //페치 조인 / 엔티티 그래프는 팀까지 쿼리 1번
+        queryCounter.count(() -> memberRepository.findMemberFetchJoin().forEach(m -> touch(m.getTeam())))
+                .assertSelects(1).assertNoNPlusOne();
+        em.clear();
+        queryCounter.count(() -> memberRepository.findAll().forEach(m -> touch(m.getTeam())))
+                .assertSelects(1).assertNoNPlusOne();
+        em.clear();
+        queryCounter.count(() -> memberRepository.findMemberEntityGraph().forEach(m -> touch(m.getTeam())))
+                .assertSelects(1).assertNoNPlusOne();
+        em.clear();
+        queryCounter.count(() -> memberRepository.findByUsername("budget1").forEach(m -> touch(m.getTeam())))
+                .assertSelects(1).assertNoNPlusOne();
+        em.clear();
+        queryCounter.count(() -> memberRepository.findMemberDtoList()).assertSelects(1);
+        queryCounter.count(() -> memberRepository.multiGet(List.of(member1.getId(), member2.getId(), -1L)))
+                .assertSelects(1);
+        em.clear();
+
+        //페이징은 content + count
+        queryCounter.count(() -> memberRepository.findByAge(36, PageRequest.of(0, 3)))
+                .assertSelects(2);
+        em.clear();
+
+        //지연 로딩은 팀마다 select 가 반복된다
+        QueryCount lazy = queryCounter.count(() -> memberRepository.findByNames(List.of("budget1", "budget2"))
+                .forEach(m -> touch(m.getTeam())));
+        lazy.assertSelects(3);
+        assertThatThrownBy(lazy::assertNoNPlusOne)
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining("association to team");
+    }
+
+    @Test
+    public void fetchPlans() {
+        Team team = teamRepository.save(new Team("planTeam"));
+        Member member = memberRepository.save(new Member("planMember", 10, team));
+        em.flush();
+        em.clear();
+
+        //summary 는 team 을 조인하지 않는다
+        Member summary = memberRepository.findById(member.getId(), MemberFetchPlan.SUMMARY).get();
+        assertThat(em.getEntityManagerFactory().getPersistenceUnitUtil().isLoaded(summary.getTeam())).isFalse();
+        em.clear();
+
+        queryCounter.count(() -> {
+            Member withTeam = memberRepository.findById(member.getId(), MemberFetchPlan.of("withTeam")).get();
+            assertThat(withTeam.getTeam().getName()).isEqualTo("planTeam");
+        }).assertSelects(1);
+        em.clear();
+
+        queryCounter.count(() -> {
+            Slice<Member> slice = memberRepository.findSlice(
+                    PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "id")), MemberFetchPlan.WITH_TEAM);
+            slice.forEach(m -> touch(m.getTeam()));
+            assertThat(slice.getContent().get(0).getUsername()).isEqualTo("planMember");
+        }).assertSelects(1).assertNoNPlusOne();
+    }
+
+    private static void touch(Team team) {
+        if (team != null) {
+            team.getName();
+        }
+    }
+
     @Test
     public void queryHint() {
         //given
@@ -270,6 +356,95 @@ class MemberRepositoryTest {
         List<Member> result = memberRepository.findLockByUsername("member1");
     }
 
+    @Test
+    public void multiGet() {
+        Member m1 = memberRepository.save(new Member("m1", 10));
+        Member m2 = memberRepository.save(new Member("m2", 20));
+        Member m3 = memberRepository.save(new Member("m3", 30));
+        em.flush();
+        em.clear();
+
+        Member managed = memberRepository.findById(m1.getId()).get();
+
+        List<Optional<Member>> result = memberRepository.multiGet(List.of(m3.getId(), -1L, m1.getId(), m2.getId()));
+
+        assertThat(result).hasSize(4);
+        assertThat(result.get(0).get().getUsername()).isEqualTo("m3");
+        assertThat(result.get(1)).isEmpty();
+        assertThat(result.get(2).get()).isSameAs(managed); //영속성 컨텍스트에 있던 엔티티는 그대로
+        assertThat(result.get(3).get().getUsername()).isEqualTo("m2");
+    }
+
+    @Test
+    public void lastModifiedValidators() {
+        Member member = memberRepository.save(new Member("member1", 10));
+        em.flush();
+        em.clear();
+
+        Optional<LocalDateTime> lastModified = memberRepository.findLastModifiedDateById(member.getId());
+        MemberVersion version = memberRepository.findVersion();
+
+        assertThat(lastModified).isPresent();
+        assertThat(version.getMemberCount()).isEqualTo(memberRepository.count());
+        assertThat(version.getLastModified()).isAfterOrEqualTo(lastModified.get());
+        assertThat(memberRepository.findLastModifiedDateById(-1L)).isEmpty();
+    }
+
+    @Test
+    public void search() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        memberRepository.save(new Member("search1", 10, teamA));
+        memberRepository.save(new Member("search2", 20, teamA));
+        memberRepository.save(new Member("search3", 30, teamA));
+        memberRepository.save(new Member("search4", 40));
+        memberRepository.save(new Member("other", 20, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernamePrefix("search");
+        condition.setAgeGoe(15);
+        condition.setTeamName("teamA");
+        condition.setSort("username");
+
+        List<MemberDto> firstPage = memberRepository.search(condition, 1);
+        assertThat(firstPage).extracting(MemberDto::getUsername).containsExactly("search2");
+        assertThat(firstPage.get(0).getTeamName()).isEqualTo("teamA");
+
+        //keyset - 이전 페이지 마지막 행 다음부터
+        MemberDto last = firstPage.get(0);
+        condition.setLastUsername(last.getUsername());
+        condition.setLastId(last.getId());
+        List<MemberDto> nextPage = memberRepository.search(condition, 10);
+        assertThat(nextPage).extracting(MemberDto::getUsername).containsExactly("search3");
+    }
+
+    @Test
+    public void changesSince() {
+        LocalDateTime since = LocalDateTime.now().minusSeconds(1);
+        Member m1 = memberRepository.save(new Member("sync1", 10));
+        Member m2 = memberRepository.save(new Member("sync2", 20));
+        Member m3 = memberRepository.save(new Member("sync3", 30));
+        em.flush();
+
+        //기본 safety-lag 안쪽의 방금 변경은 아직 내려주지 않는다
+        assertThat(memberRepository.findChanges(since, 0L, 100).getChanged())
+                .extracting(MemberDto::getId)
+                .doesNotContain(m1.getId(), m2.getId(), m3.getId());
+
+        LocalDateTime until = LocalDateTime.now().plusSeconds(1);
+        MemberChangeFeed first = memberRepository.findChanges(since, 0L, 2, until);
+        MemberChangeFeed second = memberRepository.findChanges(first.getNextSince(), first.getNextLastId(), 100, until);
+
+        List<Long> changedIds = new ArrayList<>();
+        first.getChanged().forEach(dto -> changedIds.add(dto.getId()));
+        second.getChanged().forEach(dto -> changedIds.add(dto.getId()));
+        assertThat(first.getChanged()).hasSize(2);
+        assertThat(first.isHasMore()).isTrue();
+        assertThat(changedIds).contains(m1.getId(), m2.getId(), m3.getId()).doesNotHaveDuplicates();
+        assertThat(first.isResyncRequired()).isFalse();
+        assertThat(memberRepository.findChanges(since.minusYears(1), 0L, 1).isResyncRequired()).isTrue();
+    }
+
     @Test
     public void callCustom() {
         List<Member> memberCustom = memberRepository.findMemberCustom();
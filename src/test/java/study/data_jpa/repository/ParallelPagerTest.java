@@ -0,0 +1,170 @@
+package study.data_jpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.data_jpa.entity.Member;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//count 는 별도 커넥션에서 커밋된 데이터를 읽으므로 트랜잭션 없이 저장하고 끝나면 지운다
+@SpringBootTest
+class ParallelPagerTest {
+
+    @Autowired ParallelPager parallelPager;
+    @Autowired MemberRepository memberRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired EntityManager em;
+
+    @AfterEach
+    public void cleanUp() {
+        jdbcTemplate.update("delete from member where age between 951 and 954");
+    }
+
+    @Test
+    public void parallelCount() {
+        saveMembers("pager", 951, 7);
+        PageRequest pageRequest = PageRequest.of(0, 3);
+
+        //content 와 count 가 서로를 기다린다 - 순차 실행이면 한쪽이 타임아웃
+        CountDownLatch together = new CountDownLatch(2);
+        AtomicBoolean contentMetCount = new AtomicBoolean();
+        AtomicBoolean countMetContent = new AtomicBoolean();
+        Slice<Member> page = parallelPager.findPage(pageRequest, p -> {
+            contentMetCount.set(await(together));
+            return sliceByAge(951).apply(p);
+        }, () -> {
+            countMetContent.set(await(together));
+            return countByAge(951).get();
+        });
+
+        assertThat(contentMetCount).isTrue();
+        assertThat(countMetContent).isTrue();
+        assertThat(page).isInstanceOf(Page.class);
+        assertThat(((Page<Member>) page).getTotalElements()).isEqualTo(7);
+        assertThat(page.getContent()).extracting(Member::getUsername).containsExactly("pager0", "pager1", "pager2");
+    }
+
+    @Test
+    public void slowCount() throws InterruptedException {
+        saveMembers("slowPager", 952, 7);
+        ParallelPager pager = new ParallelPager(transactionManager, 100, 1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Supplier<Long> slowCount = () -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                Thread.currentThread().interrupt();
+            }
+            return 999L;
+        };
+        try {
+            //count 가 늦으면 Slice
+            Slice<Member> slice = pager.findPage(PageRequest.of(0, 3), sliceByAge(952), slowCount);
+            assertThat(slice).isNotInstanceOf(Page.class);
+            assertThat(slice.hasNext()).isTrue();
+            assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+
+            //마지막 페이지는 count 를 기다리지 않고 취소한다
+            CountDownLatch lastInterrupted = new CountDownLatch(1);
+            long start = System.nanoTime();
+            Slice<Member> last = pager.findPage(PageRequest.of(2, 3), sliceByAge(952), () -> {
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException e) {
+                    lastInterrupted.countDown();
+                }
+                return 999L;
+            });
+            assertThat(((Page<Member>) last).getTotalElements()).isEqualTo(7);
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+            assertThat(lastInterrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            pager.shutdown();
+        }
+    }
+
+    @Test
+    public void slowCountIsCancelledInDatabase() throws InterruptedException {
+        saveMembers("dbTimeoutPager", 953, 4);
+        ParallelPager pager = new ParallelPager(transactionManager, 100, 1);
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        //H2 가 한참 걸리는 count - count 트랜잭션의 timeout(1초) 이 JDBC query timeout 으로 걸려야 끊긴다
+        Supplier<Long> heavyCount = () -> {
+            try {
+                return ((Number) em.createNativeQuery("select count(*) from system_range(1, 100000) a, system_range(1, 100000) b"
+                        + " where a.x + b.x = 0").getSingleResult()).longValue();
+            } catch (RuntimeException e) {
+                failure.set(e);
+                throw e;
+            } finally {
+                finished.countDown();
+            }
+        };
+        try {
+            Slice<Member> slice = pager.findPage(PageRequest.of(0, 3), sliceByAge(953), heavyCount);
+            assertThat(slice).isNotInstanceOf(Page.class);
+
+            assertThat(finished.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(failure.get()).isInstanceOf(PersistenceException.class);
+        } finally {
+            pager.shutdown();
+        }
+    }
+
+    private void saveMembers(String prefix, int age, int count) {
+        for (int i = 0; i < count; i++) {
+            memberRepository.save(new Member(prefix + i, age));
+        }
+    }
+
+    //size + 1 건을 읽어 다음 페이지 여부를 판단하는 content 쿼리
+    private Function<Pageable, Slice<Member>> sliceByAge(int age) {
+        return p -> {
+            List<Member> content = em.createQuery("select m from Member m where m.age = :age order by m.username", Member.class)
+                    .setParameter("age", age)
+                    .setFirstResult((int) p.getOffset())
+                    .setMaxResults(p.getPageSize() + 1)
+                    .getResultList();
+            boolean hasNext = content.size() > p.getPageSize();
+            return new SliceImpl<>(hasNext ? content.subList(0, p.getPageSize()) : content, p, hasNext);
+        };
+    }
+
+    private Supplier<Long> countByAge(int age) {
+        return () -> em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
+                .setParameter("age", age)
+                .getSingleResult();
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package study.data_jpa.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.data_jpa.entity.Member;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//파티션은 각자 커넥션에서 커밋된 데이터를 읽으므로 트랜잭션 없이 저장하고 끝나면 지운다
+@SpringBootTest
+class PartitionedScannerTest {
+
+    @Autowired PartitionedScanner partitionedScanner;
+    @Autowired MemberRepository memberRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired EntityManager em;
+
+    @AfterEach
+    public void cleanUp() {
+        jdbcTemplate.update("delete from member where username like 'scan%'");
+    }
+
+    @Test
+    public void forEach() {
+        saveMembers(30);
+
+        AtomicLong visited = new AtomicLong();
+        long scanned = partitionedScanner.forEach(Member.class, 4, member -> visited.incrementAndGet());
+
+        assertThat(scanned).isEqualTo(memberRepository.count());
+        assertThat(visited.get()).isEqualTo(scanned);
+    }
+
+    @Test
+    public void map() {
+        saveMembers(30);
+
+        long ageSum = partitionedScanner.map(Member.class, 3, rows -> rows.mapToLong(Member::getAge).sum())
+                .mapToLong(Long::longValue)
+                .sum();
+
+        long expected = memberRepository.findAll().stream().mapToLong(Member::getAge).sum();
+        assertThat(ageSum).isEqualTo(expected);
+    }
+
+    @Test
+    public void partitionsRunConcurrentlyOnSeparateConnections() {
+        saveMembers(30);
+
+        //두 파티션이 동시에 들어와야 latch 가 풀린다 - 순차 실행이면 타임아웃
+        CountDownLatch together = new CountDownLatch(2);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        Set<Integer> sessions = ConcurrentHashMap.newKeySet();
+
+        List<Boolean> metPeer = partitionedScanner.map(Member.class, 4, rows -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                sessions.add(((Number) em.createNativeQuery("select session_id()").getSingleResult()).intValue());
+                together.countDown();
+                return together.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                rows.count();
+                active.decrementAndGet();
+            }
+        }).toList();
+
+        assertThat(metPeer).hasSizeGreaterThan(1).containsOnly(true);
+        assertThat(maxActive.get()).isGreaterThan(1);
+        //동시에 실행된 파티션은 서로 다른 커넥션(H2 세션)을 쓴다
+        assertThat(sessions).hasSizeGreaterThan(1);
+    }
+
+    private void saveMembers(int count) {
+        for (int i = 0; i < count; i++) {
+            memberRepository.save(new Member("scan" + i, i));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package study.data_jpa.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.annotation.Transactional;
+import study.data_jpa.entity.Member;
+import study.data_jpa.entity.Team;
+import study.data_jpa.support.QueryCounter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+@Rollback(false)
+@Import(QueryCounter.class)
+class TeamJpaRepositoryTest {
+
+    @Autowired TeamJpaRepository teamJpaRepository;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired QueryCounter queryCounter;
+    @Autowired EntityManager em;
+
+    @Test
+    public void pageWithMembers() {
+        List<Team> saved = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Team team = teamJpaRepository.save(new Team("pageTeam" + i));
+            for (int j = 0; j < i; j++) {
+                memberJpaRepository.save(new Member("pageMember" + i + "_" + j, j, team));
+            }
+            saved.add(team);
+        }
+        em.flush();
+        em.clear();
+
+        List<Team> page = new ArrayList<>();
+        queryCounter.count(() -> {
+            List<Team> teams = teamJpaRepository.findPageWithMembersAfter(saved.get(0).getId() - 1, 3);
+            teams.forEach(team -> team.getMembers().forEach(Member::getUsername));
+            page.addAll(teams);
+        }).assertSelects(2).assertNoNPlusOne();
+
+        assertThat(page).extracting(Team::getName).containsExactly("pageTeam0", "pageTeam1", "pageTeam2");
+        assertThat(page.get(2).getMembers()).extracting(Member::getUsername)
+                .containsExactly("pageMember2_0", "pageMember2_1");
+
+        //마지막 페이지 (offset)
+        em.clear();
+        int total = (int) teamJpaRepository.count();
+        List<Team> lastPage = teamJpaRepository.findPageWithMembers(total - 2, 2);
+        assertThat(lastPage).extracting(Team::getName).containsExactly("pageTeam3", "pageTeam4");
+        assertThat(lastPage.get(1).getMembers()).hasSize(4);
+    }
+}
@@ -0,0 +1,70 @@
+package study.data_jpa.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UsernameSearchIndexTest {
+
+    UsernameSearchIndex index = new UsernameSearchIndex(null, null);
+
+    @Test
+    public void prefixAndSubstringRanking() {
+        index.put(1, "member10");
+        index.put(2, "Member1");
+        index.put(3, "teammember");
+        index.put(4, "amember");
+        index.put(5, "other");
+
+        List<Long> result = index.search("member1", 10);
+
+        //완전 일치 > 접두사 > 부분 문자열
+        assertThat(result).containsExactly(2L, 1L);
+        assertThat(index.search("member", 10)).containsExactly(2L, 1L, 4L, 3L);
+        assertThat(index.search("me", 10)).containsExactly(2L, 1L);
+    }
+
+    @Test
+    public void rankBeforeLimit() {
+        //사전순으로는 긴 이름들이 먼저 오지만 순위는 짧은 이름이 앞선다
+        index.put(1, "abaaaa");
+        index.put(2, "abaaab");
+        index.put(3, "abz");
+
+        assertThat(index.search("ab", 1)).containsExactly(3L);
+        assertThat(index.search("ab", 2)).containsExactly(3L, 1L);
+    }
+
+    @Test
+    public void updateAndRemove() {
+        index.put(1, "alpha");
+        index.put(1, "beta");
+
+        assertThat(index.search("alp", 10)).isEmpty();
+        assertThat(index.search("bet", 10)).containsExactly(1L);
+
+        index.remove(1);
+        assertThat(index.search("bet", 10)).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    public void concurrentAddAndRemoveOnSharedTerm() {
+        //같은 term / trigram 을 한 회원은 계속 넣고 빼고, 다른 회원들은 동시에 추가한다
+        CompletableFuture<Void> churn = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 20_000; i++) {
+                index.put(0, "shared");
+                index.remove(0);
+            }
+        });
+        LongStream.rangeClosed(1, 2_000).parallel().forEach(id -> index.put(id, "shared"));
+        churn.join();
+
+        assertThat(index.search("shared", 3_000)).hasSize(2_000);
+        assertThat(index.search("hared", 3_000)).hasSize(2_000);
+    }
+}
@@ -0,0 +1,37 @@
+package study.data_jpa.shard;
+
+import org.junit.jupiter.api.Test;
+import study.data_jpa.entity.TimeOrderedIdGenerator;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardIdsTest {
+
+    @Test
+    public void nonZeroNodeKeepsShardInId() {
+        TimeOrderedIdGenerator shared = TimeOrderedIdGenerator.of(5, 0);
+        TimeOrderedIdGenerator[] generators = ShardIds.createGenerators(shared);
+
+        //shard 를 지정하지 않은 저장(공유 생성기)도 기본 shard 0 으로 읽힌다
+        assertThat(ShardIds.shardOf(shared.nextId())).isZero();
+        for (int shard = 0; shard < ShardIds.MAX_SHARDS; shard++) {
+            long id = generators[shard].nextId();
+            assertThat(ShardIds.shardOf(id)).isEqualTo(shard);
+            assertThat(TimeOrderedIdGenerator.nodeIdOf(id)).isEqualTo(5);
+        }
+    }
+
+    @Test
+    public void nodesNeverShareNodeBits() {
+        //node 0 의 shard k 생성기와 node k 의 공유 생성기가 같은 node 영역을 쓰면 id 가 겹친다
+        Set<Long> nodeBits = new HashSet<>();
+        for (long nodeId = 0; nodeId < 4; nodeId++) {
+            for (TimeOrderedIdGenerator generator : ShardIds.createGenerators(TimeOrderedIdGenerator.of(nodeId, 0))) {
+                assertThat(nodeBits.add(generator.getNode())).isTrue();
+            }
+        }
+    }
+}
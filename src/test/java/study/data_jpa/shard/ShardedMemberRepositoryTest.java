@@ -0,0 +1,103 @@
+package study.data_jpa.shard;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.data_jpa.controller.MemberController;
+import study.data_jpa.dto.MemberDto;
+import study.data_jpa.entity.Member;
+import study.data_jpa.entity.Team;
+import study.data_jpa.purge.MemberPurger;
+import study.data_jpa.repository.ParallelPager;
+import study.data_jpa.repository.PartitionedScanner;
+import study.data_jpa.search.UsernameSearchIndex;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "data-jpa.sharding.enabled=true",
+        "data-jpa.sharding.urls=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1"
+})
+class ShardedMemberRepositoryTest {
+
+    @Autowired ShardedMemberRepository shardedMemberRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired ApplicationContext context;
+
+    @Test
+    public void singleDataSourceBeansAreNotCreated() {
+        //shard 0 만 읽는 빈이 떠 있으면 한 shard 의 데이터만 조용히 보게 된다
+        for (Class<?> type : List.of(MemberController.class, UsernameSearchIndex.class, ParallelPager.class,
+                PartitionedScanner.class, MemberPurger.class)) {
+            assertThat(context.getBeanNamesForType(type)).as(type.getSimpleName()).isEmpty();
+        }
+    }
+
+    @Test
+    public void routing() {
+        Team teamA = shardedMemberRepository.saveTeam(new Team("shardTeamA"), 0);
+        Team teamB = shardedMemberRepository.saveTeam(new Team("shardTeamB"), 1);
+        Member memberA = shardedMemberRepository.saveMember(new Member("sharded", 10, teamA));
+        Member memberB = shardedMemberRepository.saveMember(new Member("sharded", 20, teamB));
+
+        //팀과 회원은 팀의 shard 에 있다
+        assertThat(ShardIds.shardOf(memberA.getId())).isEqualTo(0);
+        assertThat(ShardIds.shardOf(memberB.getId())).isEqualTo(1);
+        assertThat(countOn(0, memberB.getId())).isZero();
+        assertThat(countOn(1, memberB.getId())).isEqualTo(1);
+
+        assertThat(shardedMemberRepository.findById(memberB.getId()).get().getAge()).isEqualTo(20);
+        assertThat(shardedMemberRepository.findByUsername("sharded"))
+                .extracting(Member::getAge)
+                .containsExactlyInAnyOrder(10, 20);
+
+        assertThatThrownBy(() -> shardedMemberRepository.changeTeam(memberA.getId(), teamB.getId()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void scatterGather() {
+        Team teamA = shardedMemberRepository.saveTeam(new Team("gatherTeamA"), 0);
+        Team teamB = shardedMemberRepository.saveTeam(new Team("gatherTeamB"), 1);
+        for (int i = 0; i < 5; i++) {
+            shardedMemberRepository.saveMember(new Member("gatherA" + i, 1000 + i * 2, teamA));
+            shardedMemberRepository.saveMember(new Member("gatherB" + i, 1001 + i * 2, teamB));
+        }
+
+        Page<Member> page = shardedMemberRepository.findAll(PageRequest.of(1, 3, Sort.by(Sort.Direction.DESC, "age")));
+
+        //1009 1008 1007 | 1006 1005 1004 | ...
+        assertThat(page.getContent()).extracting(Member::getAge).containsExactly(1006, 1005, 1004);
+        assertThat(page.getTotalElements()).isGreaterThanOrEqualTo(10);
+
+        List<MemberDto> dtos = shardedMemberRepository.findMemberDtoList();
+        assertThat(dtos).extracting(MemberDto::getTeamName).contains("gatherTeamA", "gatherTeamB");
+    }
+
+    @Test
+    public void findByUsernameScattersOnDirectoryMiss() {
+        //다른 노드가 저장한 회원처럼 이 노드의 디렉터리를 거치지 않고 shard 1 에 직접 넣는다
+        long id = ShardIds.nextId(1);
+        ShardContext.run(1, () -> jdbcTemplate.update(
+                "insert into member (member_id, username, age, created_date, last_modified_date) values (?, 'otherNode', 7, ?, ?)",
+                id, LocalDateTime.now(), LocalDateTime.now()));
+
+        assertThat(shardedMemberRepository.findByUsername("otherNode"))
+                .extracting(Member::getId)
+                .containsExactly(id);
+    }
+
+    private Integer countOn(int shard, Long memberId) {
+        return ShardContext.call(shard, () -> jdbcTemplate.queryForObject(
+                "select count(*) from member where member_id = ?", Integer.class, memberId));
+    }
+}
@@ -0,0 +1,134 @@
+package study.data_jpa.stats;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.data_jpa.entity.Member;
+import study.data_jpa.entity.Team;
+import study.data_jpa.entity.TeamAgeStats;
+import study.data_jpa.repository.MemberRepository;
+import study.data_jpa.repository.TeamJpaRepository;
+import study.data_jpa.repository.TeamRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//커밋 시점에 반영되므로 트랜잭션 없이 각 저장이 커밋되도록 한다
+@SpringBootTest
+class TeamAgeStatsMaintainerTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired TeamJpaRepository teamJpaRepository;
+    @Autowired TeamAgeStatsReconciler teamAgeStatsReconciler;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    List<Long> teamIds = new ArrayList<>();
+
+    @AfterEach
+    public void cleanUp() {
+        for (Long teamId : teamIds) {
+            jdbcTemplate.update("delete from member where team_id = ?", teamId);
+            jdbcTemplate.update("delete from team_age_histogram where team_id = ?", teamId);
+            jdbcTemplate.update("delete from team_age_stats where team_id = ?", teamId);
+            jdbcTemplate.update("delete from team where team_id = ?", teamId);
+        }
+    }
+
+    @Test
+    public void maintainedByDeltas() {
+        Team team = saveTeam("statsTeam");
+        Member m1 = memberRepository.save(new Member("stats1", 10, team));
+        memberRepository.save(new Member("stats2", 20, team));
+
+        assertThat(histogram(team.getId())).containsExactlyInAnyOrderEntriesOf(Map.of(10, 1L, 20, 1L));
+
+        memberRepository.bulkAgePlus(15);
+        assertThat(histogram(team.getId())).containsExactlyInAnyOrderEntriesOf(Map.of(10, 1L, 21, 1L));
+        assertThat(stats(team.getId()).getAgeSum()).isEqualTo(31);
+
+        memberRepository.deleteById(m1.getId());
+        TeamAgeStats stats = stats(team.getId());
+        assertThat(stats.getMemberCount()).isEqualTo(1);
+        assertThat(stats.getAverageAge()).isEqualTo(21.0);
+
+        teamAgeStatsReconciler.reconcile();
+        assertThat(histogram(team.getId())).containsExactlyInAnyOrderEntriesOf(Map.of(21, 1L));
+    }
+
+    @Test
+    public void concurrentFirstMembers() throws Exception {
+        Team team = saveTeam("statsRace");
+
+        //두 트랜잭션이 커밋 직전까지 함께 와서 같은 팀 / 같은 나이의 첫 요약 행을 동시에 넣는다
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Future<?>> commits = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            String username = "race" + i;
+            commits.add(executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                memberRepository.save(new Member(username, 30, teamRepository.getReferenceById(team.getId())));
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void beforeCommit(boolean readOnly) {
+                        try {
+                            barrier.await(5, TimeUnit.SECONDS);
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                });
+            })));
+        }
+        for (Future<?> commit : commits) {
+            commit.get(30, TimeUnit.SECONDS); //어느 쪽 회원 저장도 실패하지 않아야 한다
+        }
+        executor.shutdown();
+
+        assertThat(stats(team.getId()).getMemberCount()).isEqualTo(2);
+        assertThat(histogram(team.getId())).containsExactlyInAnyOrderEntriesOf(Map.of(30, 2L));
+    }
+
+    @Test
+    public void reconcileCreatesMissingStats() {
+        Team team = saveTeam("statsMissing");
+        memberRepository.save(new Member("missing1", 40, team));
+        jdbcTemplate.update("delete from team_age_histogram where team_id = ?", team.getId());
+        jdbcTemplate.update("delete from team_age_stats where team_id = ?", team.getId());
+
+        assertThat(teamAgeStatsReconciler.reconcile()).isPositive();
+        assertThat(histogram(team.getId())).containsExactlyInAnyOrderEntriesOf(Map.of(40, 1L));
+    }
+
+    private Team saveTeam(String name) {
+        Team team = teamRepository.save(new Team(name));
+        teamIds.add(team.getId());
+        return team;
+    }
+
+    private TeamAgeStats stats(Long teamId) {
+        return new TransactionTemplate(transactionManager).execute(status ->
+                teamJpaRepository.findAgeStats(teamId).orElseThrow());
+    }
+
+    private Map<Integer, Long> histogram(Long teamId) {
+        return new TransactionTemplate(transactionManager).execute(status ->
+                new HashMap<>(teamJpaRepository.findAgeStats(teamId).orElseThrow().getHistogram()));
+    }
+}
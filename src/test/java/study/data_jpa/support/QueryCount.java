@@ -0,0 +1,104 @@
+package study.data_jpa.support;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public record QueryCount(List<String> statements) {
+
+    //select ... from team t1_0 where t1_0.team_id=? -> team.team_id
+    private static final Pattern KEY_LOOKUP = Pattern.compile(
+            "\\bfrom (\\w+) (\\w+) where \\2\\.(\\w+) ?(=|in) ?\\(?\\?");
+
+    public long selects() {
+        return countOf("select", "with");
+    }
+
+    public long inserts() {
+        return countOf("insert");
+    }
+
+    public long updates() {
+        return countOf("update");
+    }
+
+    public long deletes() {
+        return countOf("delete");
+    }
+
+    public int total() {
+        return statements.size();
+    }
+
+    public QueryCount assertSelects(long expected) {
+        return check("SELECT", expected, selects());
+    }
+
+    public QueryCount assertInserts(long expected) {
+        return check("INSERT", expected, inserts());
+    }
+
+    public QueryCount assertUpdates(long expected) {
+        return check("UPDATE", expected, updates());
+    }
+
+    public QueryCount assertDeletes(long expected) {
+        return check("DELETE", expected, deletes());
+    }
+
+    /**
+     * 같은 모양의 SELECT 가 반복되면 지연 로딩 N+1 로 보고 실패한다.
+     */
+    public QueryCount assertNoNPlusOne() {
+        Map<String, Integer> shapes = new LinkedHashMap<>();
+        for (String sql : statements) {
+            String shape = normalize(sql);
+            if (shape.startsWith("select")) {
+                shapes.merge(shape, 1, Integer::sum);
+            }
+        }
+        for (Map.Entry<String, Integer> shape : shapes.entrySet()) {
+            if (shape.getValue() > 1) {
+                throw new AssertionError("N+1 detected: " + association(shape.getKey())
+                        + " loaded " + shape.getValue() + " times with the same query\n  " + shape.getKey());
+            }
+        }
+        return this;
+    }
+
+    private QueryCount check(String type, long expected, long actual) {
+        if (expected != actual) {
+            throw new AssertionError("expected " + expected + " " + type + " statement(s) but was " + actual
+                    + "\n  " + String.join("\n  ", statements));
+        }
+        return this;
+    }
+
+    private long countOf(String... keywords) {
+        return statements.stream()
+                .map(QueryCount::normalize)
+                .filter(sql -> {
+                    for (String keyword : keywords) {
+                        if (sql.startsWith(keyword)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                })
+                .count();
+    }
+
+    private static String association(String shape) {
+        Matcher matcher = KEY_LOOKUP.matcher(shape);
+        return matcher.find()
+                ? "association to " + matcher.group(1) + " (by " + matcher.group(1) + "." + matcher.group(3) + ")"
+                : "same-shape query";
+    }
+
+    private static String normalize(String sql) {
+        return sql.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,58 @@
+package study.data_jpa.support;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.boot.test.context.TestComponent;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * p6spy 로 데이터소스를 지나는 SQL 을 현재 스레드 기준으로 센다. 테스트에서 @Import(QueryCounter.class) 로 등록한다.
+ * JDBC batch 는 addBatch 된 행마다 한 문장으로 센다.
+ */
+@TestComponent
+public class QueryCounter extends SimpleJdbcEventListener {
+
+    private static final ThreadLocal<List<String>> RECORDING = new ThreadLocal<>();
+
+    public QueryCount count(Runnable block) {
+        List<String> previous = RECORDING.get();
+        List<String> statements = new ArrayList<>();
+        RECORDING.set(statements);
+        try {
+            block.run();
+        } finally {
+            if (previous == null) {
+                RECORDING.remove();
+            } else {
+                previous.addAll(statements);
+                RECORDING.set(previous);
+            }
+        }
+        return new QueryCount(statements);
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        record(statementInformation.getSql());
+    }
+
+    @Override
+    public void onAfterAnyAddBatch(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        record(statementInformation.getSql());
+    }
+
+    @Override
+    public void onAfterExecuteBatch(StatementInformation statementInformation, long timeElapsedNanos, int[] updateCounts, SQLException e) {
+        //addBatch 에서 이미 셌다
+    }
+
+    private static void record(String sql) {
+        List<String> statements = RECORDING.get();
+        if (statements != null && sql != null) {
+            statements.add(sql);
+        }
+    }
+}
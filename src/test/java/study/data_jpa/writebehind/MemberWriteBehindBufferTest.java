@@ -0,0 +1,119 @@
+package study.data_jpa.writebehind;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import study.data_jpa.entity.Member;
+import study.data_jpa.repository.MemberRepository;
+import study.data_jpa.support.QueryCounter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "data-jpa.write-behind.enabled=true",
+        "data-jpa.write-behind.interval=600000",
+        "data-jpa.write-behind.capacity=3",
+        "data-jpa.write-behind.max-attempts=1"
+})
+@Import(QueryCounter.class)
+class MemberWriteBehindBufferTest {
+
+    @Autowired MemberWriteBehindBuffer buffer;
+    @Autowired MemberRepository memberRepository;
+    @Autowired QueryCounter queryCounter;
+
+    @Test
+    public void coalesce() {
+        Member member = memberRepository.save(new Member("hot", 10));
+        long receivedBefore = buffer.getReceived();
+        long writtenBefore = buffer.getWritten();
+
+        for (int age = 11; age <= 100; age++) {
+            buffer.changeAge(member.getId(), age);
+        }
+        buffer.changeUsername(member.getId(), "hotChanged");
+
+        //아직 DB 에는 없지만 조회에서는 보인다
+        assertThat(memberRepository.findById(member.getId()).get().getAge()).isEqualTo(10);
+        Member pending = memberRepository.findByIdWithPending(member.getId()).get();
+        assertThat(pending.getAge()).isEqualTo(100);
+        assertThat(pending.getUsername()).isEqualTo("hotChanged");
+
+        assertThat(buffer.flush()).isEqualTo(1);
+
+        Member findMember = memberRepository.findById(member.getId()).get();
+        assertThat(findMember.getAge()).isEqualTo(100);
+        assertThat(findMember.getUsername()).isEqualTo("hotChanged");
+        assertThat(buffer.getReceived() - receivedBefore).isEqualTo(91);
+        assertThat(buffer.getWritten() - writtenBefore).isEqualTo(1);
+        assertThat(buffer.pending(member.getId())).isEmpty();
+    }
+
+    @Test
+    public void batchedFlush() {
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            members.add(memberRepository.save(new Member("batch" + i, i)));
+        }
+        for (int round = 0; round < 10; round++) {
+            for (Member member : members) {
+                buffer.changeAge(member.getId(), round);
+            }
+        }
+
+        //회원 수만큼의 UPDATE 와 한 번의 조회
+        queryCounter.count(buffer::flush).assertSelects(1).assertUpdates(3);
+
+        for (Member member : members) {
+            assertThat(memberRepository.findById(member.getId()).get().getAge()).isEqualTo(9);
+        }
+    }
+
+    @Test
+    public void failingRowIsIsolated() {
+        Member good = memberRepository.save(new Member("wbGood", 10));
+        Member bad = memberRepository.save(new Member("wbBad", 10));
+        buffer.changeAge(good.getId(), 20);
+        buffer.changeUsername(bad.getId(), "x".repeat(300)); //컬럼 길이 초과
+
+        //실패한 회원만 dead letter 로 빠지고 나머지는 쓰인다
+        assertThat(buffer.flush()).isEqualTo(1);
+        assertThat(memberRepository.findById(good.getId()).get().getAge()).isEqualTo(20);
+        assertThat(buffer.getDeadLetters()).containsKey(bad.getId());
+        assertThat(buffer.pending(bad.getId())).isEmpty();
+
+        //이후 변경은 계속 쓰인다
+        buffer.changeAge(bad.getId(), 30);
+        assertThat(buffer.flush()).isEqualTo(1);
+        assertThat(memberRepository.findById(bad.getId()).get().getAge()).isEqualTo(30);
+
+        //다시 넣어도 원인이 그대로면 다시 dead letter 로
+        assertThat(buffer.requeueDeadLetters()).isEqualTo(1);
+        assertThat(buffer.flush()).isZero();
+        assertThat(buffer.getDeadLetters()).containsKey(bad.getId());
+    }
+
+    @Test
+    public void callerRunsKeepsCallersUpdate() {
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            members.add(memberRepository.save(new Member("callerRuns" + i, 0)));
+        }
+        buffer.changeUsername(members.get(0).getId(), "x".repeat(300));
+        buffer.changeAge(members.get(1).getId(), 1);
+        buffer.changeAge(members.get(2).getId(), 2);
+
+        //capacity(3) 를 넘기면 호출 스레드가 flush - 실패한 행이 있어도 예외 없이 자기 변경까지 쓴다
+        buffer.changeAge(members.get(3).getId(), 3);
+
+        assertThat(buffer.size()).isZero();
+        for (int i = 1; i < 4; i++) {
+            assertThat(memberRepository.findById(members.get(i).getId()).get().getAge()).isEqualTo(i);
+        }
+        assertThat(buffer.getDeadLetters()).containsKey(members.get(0).getId());
+    }
+}